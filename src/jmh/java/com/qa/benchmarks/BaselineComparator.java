@@ -0,0 +1,159 @@
+package com.qa.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.openqa.selenium.json.Json;
+
+/**
+ * Compares a JMH JSON result file with the stored baseline and fails when a
+ * benchmark got slower, or allocates more per operation, by more than the
+ * tolerance. A score only counts as slower when its confidence interval (score
+ * plus or minus JMH's scoreError) does not overlap the baseline's; a change
+ * beyond the tolerance inside the noise is reported as NOISY without failing.
+ * Run by the benchmark profile after the benchmarks:
+ *
+ * <pre>
+ * BaselineComparator &lt;result.json&gt; &lt;baseline.json&gt; &lt;tolerance&gt; &lt;updateBaseline&gt;
+ * </pre>
+ *
+ * The baseline is only meaningful for the machine it was recorded on, so it
+ * should be recorded on the CI agent with -Djmh.updateBaseline=true and
+ * committed from there. Without a baseline the comparison fails.
+ */
+public class BaselineComparator {
+
+	private static final String ALLOCATION = "gc.alloc.rate.norm";
+
+	public static void main(String[] args) throws IOException {
+		Path result = Paths.get(args[0]);
+		Path baseline = Paths.get(args[1]);
+		double tolerance = Double.parseDouble(args[2]);
+		boolean update = Boolean.parseBoolean(args[3]);
+
+		if (update) {
+			Files.createDirectories(baseline.toAbsolutePath().getParent());
+			Files.copy(result, baseline, StandardCopyOption.REPLACE_EXISTING);
+			System.out.println("Benchmark baseline updated: " + baseline);
+			return;
+		}
+		if (!Files.exists(baseline)) {
+			System.out.println("No benchmark baseline at " + baseline
+					+ ", record one with -Djmh.updateBaseline=true on the CI agent and commit it.");
+			System.exit(1);
+		}
+
+		Map<String, Map<String, Object>> current = index(result);
+		Map<String, Map<String, Object>> previous = index(baseline);
+		int regressions = 0;
+		for (Map.Entry<String, Map<String, Object>> entry : current.entrySet()) {
+			Map<String, Object> before = previous.get(entry.getKey());
+			if (before == null) {
+				System.out.println("NEW        " + entry.getKey());
+				continue;
+			}
+			regressions += compareScore(entry.getKey(), before, entry.getValue(), tolerance);
+			regressions += compareAllocation(entry.getKey(), before, entry.getValue(), tolerance);
+		}
+		if (regressions > 0) {
+			System.out.println(regressions + " benchmark regression(s) beyond " + (tolerance * 100) + "%");
+			System.exit(1);
+		}
+		System.out.println("No benchmark regressions beyond " + (tolerance * 100) + "%");
+	}
+
+	private static int compareScore(String name, Map<String, Object> before, Map<String, Object> after,
+			double tolerance) {
+		double old = score(metric(before, null));
+		double oldError = error(metric(before, null));
+		double now = score(metric(after, null));
+		double nowError = error(metric(after, null));
+		boolean higherIsBetter = "thrpt".equals(after.get("mode"));
+		double change = (now - old) / old;
+		boolean beyondTolerance = higherIsBetter ? change < -tolerance : change > tolerance;
+		boolean significant = higherIsBetter ? now + nowError < old - oldError : now - nowError > old + oldError;
+		String verdict = !beyondTolerance ? "OK" : significant ? "REGRESSED" : "NOISY";
+		System.out.printf("%-10s %s: %.3f +- %.3f -> %.3f +- %.3f %s (%+.1f%%)%n", verdict, name, old, oldError, now,
+				nowError, metric(after, null).get("scoreUnit"), change * 100);
+		return beyondTolerance && significant ? 1 : 0;
+	}
+
+	private static int compareAllocation(String name, Map<String, Object> before, Map<String, Object> after,
+			double tolerance) {
+		Map<String, Object> old = metric(before, ALLOCATION);
+		Map<String, Object> now = metric(after, ALLOCATION);
+		if (old == null || now == null || score(old) <= 0) {
+			return 0;
+		}
+		double change = (score(now) - score(old)) / score(old);
+		if (change > tolerance) {
+			System.out.printf("%-10s %s: %.0f -> %.0f B/op (%+.1f%%)%n", "ALLOCATES", name, score(old), score(now),
+					change * 100);
+			return 1;
+		}
+		return 0;
+	}
+
+	/**
+	 * Key results by benchmark name plus sorted parameters.
+	 */
+	@SuppressWarnings("unchecked")
+	private static Map<String, Map<String, Object>> index(Path file) throws IOException {
+		String json = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+		List<Map<String, Object>> results = new Json().toType(json, Json.LIST_OF_MAPS_TYPE);
+		Map<String, Map<String, Object>> indexed = new LinkedHashMap<String, Map<String, Object>>();
+		for (Map<String, Object> run : results) {
+			Object params = run.get("params");
+			String key = run.get("benchmark")
+					+ (params == null ? "" : new TreeMap<String, Object>((Map<String, Object>) params).toString());
+			indexed.put(key, run);
+		}
+		return indexed;
+	}
+
+	/**
+	 * @param secondary null for the primary metric
+	 */
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> metric(Map<String, Object> run, String secondary) {
+		if (secondary == null) {
+			return (Map<String, Object>) run.get("primaryMetric");
+		}
+		Map<String, Object> metrics = (Map<String, Object>) run.get("secondaryMetrics");
+		if (metrics == null) {
+			return null;
+		}
+		for (Map.Entry<String, Object> metricEntry : metrics.entrySet()) {
+			// older JMH versions prefix profiler metrics with a middle dot
+			if (metricEntry.getKey().endsWith(secondary)) {
+				return (Map<String, Object>) metricEntry.getValue();
+			}
+		}
+		return null;
+	}
+
+	private static double score(Map<String, Object> metric) {
+		Object score = metric.get("score");
+		return score instanceof Number ? ((Number) score).doubleValue() : Double.NaN;
+	}
+
+	/**
+	 * @return the half-width of the metric's confidence interval, 0 when JMH
+	 *         could not compute one (a single measurement iteration)
+	 */
+	private static double error(Map<String, Object> metric) {
+		Object error = metric.get("scoreError");
+		return error instanceof Number && !Double.isNaN(((Number) error).doubleValue())
+				? ((Number) error).doubleValue()
+				: 0;
+	}
+
+}
@@ -0,0 +1,215 @@
+package com.qa.benchmarks;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+/**
+ * In-process WebDriver serving a single static table, used to measure the
+ * framework's own overhead without a browser. Every call on the driver or on
+ * one of its elements counts as one command and can be given an artificial
+ * round trip, so command counts and latency sensitivity can be compared.
+ * Scripts are not evaluated; the two table scripts used by BasePage are
+ * recognised by their arguments and answered from the table model, and the
+ * form fill script reports every field as set.
+ */
+public class FakeWebDriver implements InvocationHandler {
+
+	private final List<String> headers;
+	private final List<List<String>> rows;
+	private final long roundTripNanos;
+	private final WebDriver driver;
+	private final WebElement table;
+	private long commands;
+
+	/**
+	 * @param rowCount        data rows in the table
+	 * @param columnCount     columns in the table
+	 * @param roundTripMicros simulated latency of every command
+	 */
+	public FakeWebDriver(int rowCount, int columnCount, long roundTripMicros) {
+		this.roundTripNanos = roundTripMicros * 1000;
+		this.headers = new ArrayList<String>();
+		for (int column = 0; column < columnCount; column++) {
+			headers.add("Column " + column);
+		}
+		this.rows = new ArrayList<List<String>>();
+		for (int row = 0; row < rowCount; row++) {
+			List<String> cells = new ArrayList<String>();
+			for (int column = 0; column < columnCount; column++) {
+				cells.add("r" + row + "c" + column);
+			}
+			rows.add(cells);
+		}
+		this.driver = (WebDriver) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] { WebDriver.class, JavascriptExecutor.class }, this);
+		this.table = element(new Node("table", -1, -1));
+	}
+
+	public WebDriver getDriver() {
+		return driver;
+	}
+
+	public long getCommandCount() {
+		return commands;
+	}
+
+	public List<String> getHeaders() {
+		return headers;
+	}
+
+	public List<List<String>> getRows() {
+		return rows;
+	}
+
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) {
+		if (method.getDeclaringClass() == Object.class) {
+			return objectMethod(proxy, method, args);
+		}
+		command();
+		switch (method.getName()) {
+		case "findElement":
+			return table;
+		case "findElements":
+			return Collections.singletonList(table);
+		case "executeScript":
+			return executeScript((Object[]) args[1]);
+		case "getTitle":
+			return "Fake table";
+		case "getCurrentUrl":
+			return "about:blank";
+		default:
+			return null;
+		}
+	}
+
+	private Object executeScript(Object[] arguments) {
+		if (arguments.length == 1 && arguments[0] instanceof List) { // FILL_FORM_SCRIPT(fields)
+			return Collections.emptyList();
+		}
+		if (arguments.length == 3) { // getCellText(table, row, column)
+			int row = ((Number) arguments[1]).intValue() - 1; // row 0 is the header row
+			int column = ((Number) arguments[2]).intValue();
+			if (row < 0 || row >= rows.size() || column >= headers.size()) {
+				return null;
+			}
+			return rows.get(row).get(column);
+		}
+		// READ_TABLE_SCRIPT(table, headers): copy the way the browser would
+		Map<String, Object> result = new LinkedHashMap<String, Object>();
+		result.put("headers", new ArrayList<Object>(headers));
+		List<Object> copy = new ArrayList<Object>(rows.size());
+		for (List<String> row : rows) {
+			copy.add(new ArrayList<Object>(row));
+		}
+		result.put("rows", copy);
+		return result;
+	}
+
+	private void command() {
+		commands++;
+		if (roundTripNanos > 0) {
+			LockSupport.parkNanos(roundTripNanos);
+		}
+	}
+
+	private WebElement element(final Node node) {
+		return (WebElement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { WebElement.class },
+				new InvocationHandler() {
+
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] args) {
+						if (method.getDeclaringClass() == Object.class) {
+							return objectMethod(proxy, method, args);
+						}
+						command();
+						switch (method.getName()) {
+						case "isDisplayed":
+						case "isEnabled":
+							return true;
+						case "getTagName":
+							return node.tag;
+						case "getText":
+							return node.text();
+						case "findElements":
+							return children(node, (By) args[0]);
+						case "findElement":
+							List<WebElement> found = children(node, (By) args[0]);
+							if (found.isEmpty()) {
+								throw new org.openqa.selenium.NoSuchElementException(String.valueOf(args[0]));
+							}
+							return found.get(0);
+						default:
+							return null;
+						}
+					}
+				});
+	}
+
+	/**
+	 * Child lookups used by the per-cell table code: tr under the table, td
+	 * under a row, and the first row's cells by XPath.
+	 */
+	private List<WebElement> children(Node node, By locator) {
+		String description = String.valueOf(locator);
+		List<WebElement> found = new ArrayList<WebElement>();
+		if (node.tag.equals("table") && description.endsWith(": tr")) {
+			for (int row = -1; row < rows.size(); row++) {
+				found.add(element(new Node("tr", row, -1)));
+			}
+		} else if (node.tag.equals("tr") && description.endsWith(": td") && node.row >= 0) {
+			for (int column = 0; column < headers.size(); column++) {
+				found.add(element(new Node("td", node.row, column)));
+			}
+		} else if (node.tag.equals("table") && description.contains("/td")) {
+			for (int column = 0; column < headers.size(); column++) {
+				found.add(element(new Node("td", 0, column)));
+			}
+		}
+		return found;
+	}
+
+	private static Object objectMethod(Object proxy, Method method, Object[] args) {
+		switch (method.getName()) {
+		case "equals":
+			return proxy == args[0];
+		case "hashCode":
+			return System.identityHashCode(proxy);
+		default:
+			return "FakeWebDriver element";
+		}
+	}
+
+	private final class Node {
+
+		private final String tag;
+		private final int row; // -1 for the header row
+		private final int column;
+
+		Node(String tag, int row, int column) {
+			this.tag = tag;
+			this.row = row;
+			this.column = column;
+		}
+
+		String text() {
+			if (tag.equals("td")) {
+				return rows.get(row).get(column);
+			}
+			return "";
+		}
+	}
+
+}
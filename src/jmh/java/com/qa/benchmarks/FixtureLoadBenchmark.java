@@ -0,0 +1,99 @@
+package com.qa.benchmarks;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.qa.util.ConfigManager;
+import com.qa.util.DatabaseUtil;
+import com.qa.util.FixtureLoader;
+
+/**
+ * FixtureLoader seeding a CSV dataset into an in-memory H2 database inside a
+ * transaction that is rolled back afterwards, as a scenario does, for several
+ * JDBC batch sizes. The teardown prints rows per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FixtureLoadBenchmark {
+
+	private static final String URL = "jdbc:h2:mem:fixtures;DB_CLOSE_DELAY=-1";
+
+	@Param({ "10000" })
+	public int rows;
+
+	@Param({ "1", "100", "1000" })
+	public int batchSize;
+
+	private String csv;
+	private DatabaseUtil database;
+	private FixtureLoader loader;
+	private long loadedRows;
+	private long loadNanos;
+
+	@Setup(Level.Trial)
+	public void setUp() throws SQLException {
+		try (Connection connection = DriverManager.getConnection(URL, "sa", "");
+				Statement statement = connection.createStatement()) {
+			statement.execute("DROP TABLE IF EXISTS customers");
+			statement.execute("CREATE TABLE customers (id BIGINT PRIMARY KEY, email VARCHAR(128), name VARCHAR(64),"
+					+ " credit DECIMAL(10,2), active BOOLEAN)");
+		}
+		StringBuilder data = new StringBuilder("id,email,name,credit,active\n");
+		for (int id = 0; id < rows; id++) {
+			data.append(id).append(",user").append(id).append("@example.com,\"Customer, ").append(id).append("\",")
+					.append(id % 500).append(".25,").append(id % 2 == 0).append('\n');
+		}
+		csv = data.toString();
+
+		System.setProperty("db.url", URL);
+		System.setProperty("db.username", "sa");
+		System.setProperty("db.password", "");
+		ConfigManager.reload();
+		database = new DatabaseUtil();
+		loader = new FixtureLoader(database, batchSize, "fixtures");
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		System.out.printf("%nbatch size %d: %.0f rows/s%n", batchSize, loadedRows / Math.max(loadNanos / 1e9, 1e-9));
+		database.close();
+	}
+
+	@Benchmark
+	public long loadAndRollBack() throws IOException, SQLException {
+		long start = System.nanoTime();
+		database.beginTransaction();
+		try {
+			long loaded = loader.loadCsv("customers", new StringReader(csv));
+			loadedRows += loaded;
+			return loaded;
+		} finally {
+			database.rollback();
+			loadNanos += System.nanoTime() - start;
+		}
+	}
+
+}
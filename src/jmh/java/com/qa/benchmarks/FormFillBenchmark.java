@@ -0,0 +1,95 @@
+package com.qa.benchmarks;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+
+import com.qa.pages.BasePage;
+
+/**
+ * Filling a form of N fields with BasePage.fillForm() against one enterText()
+ * per field. The teardown prints the driver commands issued per form; with
+ * roundTripMicros above zero the score shows what those commands cost.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FormFillBenchmark {
+
+	@Param({ "2", "20", "40" })
+	public int fields;
+
+	@Param({ "0", "200" })
+	public long roundTripMicros;
+
+	private FakeWebDriver fake;
+	private FormPage page;
+	private Map<By, String> form;
+	private long operations;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		fake = new FakeWebDriver(1, 1, roundTripMicros);
+		page = new FormPage(fake.getDriver());
+		form = new LinkedHashMap<By, String>();
+		for (int field = 0; field < fields; field++) {
+			form.put(By.name("field" + field), "value " + field);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void printCommandCount() {
+		System.out.printf("%n%d fields: %.1f driver commands per form%n", fields,
+				(double) fake.getCommandCount() / Math.max(1, operations));
+	}
+
+	@Benchmark
+	public void fillForm() {
+		operations++;
+		page.fillForm(form);
+	}
+
+	@Benchmark
+	public void enterTextLoop() {
+		operations++;
+		for (Map.Entry<By, String> field : form.entrySet()) {
+			page.enterText(field.getKey(), field.getValue());
+		}
+	}
+
+	/**
+	 * Exposes the protected typing helper to the benchmark. The element cache is
+	 * left as configured, as in a real page object.
+	 */
+	static final class FormPage extends BasePage {
+
+		FormPage(WebDriver driver) {
+			super(driver);
+		}
+
+		@Override
+		public void enterText(By locator, String text) {
+			super.enterText(locator, text);
+		}
+	}
+
+}
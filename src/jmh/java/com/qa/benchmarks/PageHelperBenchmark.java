@@ -0,0 +1,96 @@
+package com.qa.benchmarks;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+
+import com.qa.pages.BasePage;
+import com.qa.util.ConfigManager;
+import com.qa.util.ConfigReader;
+
+/**
+ * URL resolution and text helpers of BasePage: getUrl() from the ConfigManager
+ * snapshot against the per-call properties file read it replaced, and getText()
+ * with and without the element cache.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PageHelperBenchmark {
+
+	private static final String CONFIG_PATH = "src/test/resources/config/config.properties";
+	private static final By CELL = By.id("cell");
+
+	@Param({ "true", "false" })
+	public boolean elementCache;
+
+	private TextPage page;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		System.setProperty("element.cache.enabled", String.valueOf(elementCache));
+		ConfigManager.reload();
+		page = new TextPage(new FakeWebDriver(1, 1, 0).getDriver());
+	}
+
+	@Benchmark
+	public String getUrl() {
+		return page.getUrl();
+	}
+
+	/**
+	 * getUrl() as it was before ConfigManager: the properties file is read on
+	 * every call.
+	 */
+	@Benchmark
+	public String legacyGetUrl() {
+		Properties prop = new ConfigReader().init_prop(CONFIG_PATH);
+		String environment = prop.getProperty("setUpEnvironment");
+		switch (environment.toUpperCase()) {
+		case "SIT":
+			return prop.getProperty("sit.url");
+		case "UAT":
+			return prop.getProperty("uat.url");
+		default:
+			return "";
+		}
+	}
+
+	@Benchmark
+	public String getText() {
+		return page.getText(CELL);
+	}
+
+	/**
+	 * Exposes the protected text helper to the benchmark.
+	 */
+	static final class TextPage extends BasePage {
+
+		TextPage(WebDriver driver) {
+			super(driver);
+		}
+
+		@Override
+		public String getText(By locator) {
+			return super.getText(locator);
+		}
+	}
+
+}
@@ -0,0 +1,106 @@
+package com.qa.benchmarks;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.qa.util.ConfigManager;
+import com.qa.util.DatabaseUtil;
+import com.qa.util.QueryResult;
+
+/**
+ * DatabaseUtil row mapping against an in-memory H2 database: the List of Maps
+ * returned by executeQuery(), the columnar QueryResult and the streaming
+ * cursor. Run with -prof gc to compare gc.alloc.rate.norm (bytes per query).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class RowMappingBenchmark {
+
+	private static final String URL = "jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1";
+	private static final String QUERY = "SELECT id, name, amount, active, created FROM orders";
+
+	@Param({ "10000", "100000", "1000000" })
+	public int rows;
+
+	private DatabaseUtil database;
+
+	@Setup(Level.Trial)
+	public void setUp() throws SQLException {
+		try (Connection connection = DriverManager.getConnection(URL, "sa", "");
+				Statement statement = connection.createStatement()) {
+			statement.execute("DROP TABLE IF EXISTS orders");
+			statement.execute("CREATE TABLE orders (id BIGINT PRIMARY KEY, name VARCHAR(64), amount DOUBLE,"
+					+ " active BOOLEAN, created TIMESTAMP)");
+			connection.setAutoCommit(false);
+			try (PreparedStatement insert = connection
+					.prepareStatement("INSERT INTO orders VALUES (?, ?, ?, ?, CURRENT_TIMESTAMP)")) {
+				for (int id = 0; id < rows; id++) {
+					insert.setLong(1, id);
+					insert.setString(2, "customer-" + (id % 1000));
+					insert.setDouble(3, id * 1.5);
+					insert.setBoolean(4, id % 2 == 0);
+					insert.addBatch();
+					if (id % 10000 == 9999) {
+						insert.executeBatch();
+					}
+				}
+				insert.executeBatch();
+			}
+			connection.commit();
+		}
+
+		System.setProperty("db.url", URL);
+		System.setProperty("db.username", "sa");
+		System.setProperty("db.password", "");
+		ConfigManager.reload();
+		database = new DatabaseUtil();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		database.close();
+	}
+
+	@Benchmark
+	public List<Map<String, Object>> executeQuery() {
+		return database.executeQuery(QUERY);
+	}
+
+	@Benchmark
+	public QueryResult executeQueryResult() {
+		return database.executeQueryResult(QUERY);
+	}
+
+	@Benchmark
+	public long streamQuery() {
+		try (Stream<Map<String, Object>> stream = database.streamQuery(QUERY)) {
+			return stream.count();
+		}
+	}
+
+}
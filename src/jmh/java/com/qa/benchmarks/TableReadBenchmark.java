@@ -0,0 +1,101 @@
+package com.qa.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+
+import com.qa.pages.BasePage;
+import com.qa.pages.TableData;
+
+/**
+ * BasePage table helpers against {@link FakeWebDriver}: the single-script
+ * readTable() and getCellText() against the per-cell findElements/getText
+ * walk they replaced. With roundTripMicros=0 the score is pure framework
+ * overhead; the teardown prints the driver commands issued per operation.
+ * The fake driver answers the table script from its own model; the script
+ * itself, and its command count against the per-cell walk on the static
+ * tables.html fixture, are checked in a browser by the @fixture scenarios in
+ * TableReading.feature.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TableReadBenchmark {
+
+	private static final By TABLE = By.id("table");
+	private static final int COLUMNS = 6;
+
+	@Param({ "10", "100", "500" })
+	public int rows;
+
+	@Param({ "0", "200" })
+	public long roundTripMicros;
+
+	private FakeWebDriver fake;
+	private BasePage page;
+	private long operations;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		fake = new FakeWebDriver(rows, COLUMNS, roundTripMicros);
+		page = new BasePage(fake.getDriver());
+	}
+
+	@TearDown(Level.Trial)
+	public void printCommandCount() {
+		System.out.printf("%n%d rows: %.1f driver commands per operation%n", rows,
+				(double) fake.getCommandCount() / Math.max(1, operations));
+	}
+
+	@Benchmark
+	public TableData readTable() {
+		operations++;
+		return page.readTable(TABLE);
+	}
+
+	@Benchmark
+	public void getCellTextLoop(Blackhole blackhole) {
+		operations++;
+		for (int row = 1; row <= rows; row++) {
+			for (int column = 0; column < COLUMNS; column++) {
+				blackhole.consume(page.getCellText(TABLE, row, column));
+			}
+		}
+	}
+
+	/**
+	 * The pre-readTable way of reading every cell: one findElements for the rows,
+	 * one per row for its cells and one getText per cell.
+	 */
+	@Benchmark
+	public void legacyCellWalk(Blackhole blackhole) {
+		operations++;
+		WebElement table = fake.getDriver().findElement(TABLE);
+		List<WebElement> tableRows = table.findElements(By.tagName("tr"));
+		for (int row = 1; row < tableRows.size(); row++) {
+			for (WebElement cell : tableRows.get(row).findElements(By.tagName("td"))) {
+				blackhole.consume(cell.getText());
+			}
+		}
+	}
+
+}
@@ -0,0 +1,158 @@
+package com.qa.factory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * On-disk content cache for static assets, shared by every browser session
+ * and every JVM using the same directory. Each entry is a body file plus a
+ * small properties file with the original response headers and how long the
+ * download took. Both are written through a temporary file and an atomic
+ * move, so concurrent sessions never read a partial entry.
+ */
+public class AssetCache {
+
+	private final Path directory;
+	private final long ttlMillis;
+
+	/**
+	 * @param directory  where entries are stored
+	 * @param ttlMinutes entries older than this are downloaded again
+	 */
+	public AssetCache(Path directory, long ttlMinutes) {
+		this.directory = directory;
+		this.ttlMillis = ttlMinutes * 60_000;
+	}
+
+	/**
+	 * @param url the asset url
+	 * @return the cached asset, or null if it is not cached or has expired
+	 */
+	public Asset get(String url) {
+		String key = key(url);
+		Path body = directory.resolve(key + ".body");
+		Path meta = directory.resolve(key + ".meta");
+		try {
+			if (!Files.exists(meta) || !Files.exists(body)
+					|| System.currentTimeMillis() - Files.getLastModifiedTime(meta).toMillis() > ttlMillis) {
+				return null;
+			}
+			Properties properties = new Properties();
+			try (InputStream in = Files.newInputStream(meta)) {
+				properties.load(in);
+			}
+			List<Map.Entry<String, String>> headers = new ArrayList<Map.Entry<String, String>>();
+			for (int i = 0; properties.getProperty("header." + i + ".name") != null; i++) {
+				headers.add(new SimpleImmutableEntry<String, String>(properties.getProperty("header." + i + ".name"),
+						properties.getProperty("header." + i + ".value", "")));
+			}
+			if (headers.isEmpty() && properties.getProperty("contentType") != null) {
+				// entry written before headers were kept
+				headers.add(new SimpleImmutableEntry<String, String>("Content-Type",
+						properties.getProperty("contentType")));
+			}
+			return new Asset(Files.readAllBytes(body), headers,
+					Long.parseLong(properties.getProperty("fetchMillis", "0")));
+		} catch (IOException | NumberFormatException e) {
+			return null; // treat an unreadable entry as a miss, it is rewritten on the next download
+		}
+	}
+
+	/**
+	 * Store a downloaded asset. The body is written before the metadata, and
+	 * {@link #get(String)} only trusts entries whose metadata exists.
+	 *
+	 * @param url         the asset url
+	 * @param content     the response body
+	 * @param headers     the response headers to replay, in order
+	 * @param fetchMillis how long the download took
+	 */
+	public void put(String url, byte[] content, List<Map.Entry<String, String>> headers, long fetchMillis) {
+		String key = key(url);
+		Properties properties = new Properties();
+		properties.setProperty("url", url);
+		for (int i = 0; i < headers.size(); i++) {
+			properties.setProperty("header." + i + ".name", headers.get(i).getKey());
+			properties.setProperty("header." + i + ".value", headers.get(i).getValue());
+		}
+		properties.setProperty("fetchMillis", String.valueOf(fetchMillis));
+		try {
+			Files.createDirectories(directory);
+			writeAtomically(directory.resolve(key + ".body"), content);
+			Path temp = Files.createTempFile(directory, key, ".tmp");
+			try (OutputStream out = Files.newOutputStream(temp)) {
+				properties.store(out, null);
+			}
+			Files.move(temp, directory.resolve(key + ".meta"), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			System.out.println("Unable to cache " + url + ": " + e.getMessage());
+		}
+	}
+
+	private void writeAtomically(Path target, byte[] content) throws IOException {
+		Path temp = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+		Files.write(temp, content);
+		Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private static String key(String url) {
+		try {
+			StringBuilder hex = new StringBuilder();
+			for (byte b : MessageDigest.getInstance("SHA-1").digest(url.getBytes(StandardCharsets.UTF_8))) {
+				hex.append(String.format("%02x", b));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * A cached response body.
+	 */
+	public static final class Asset {
+
+		private final byte[] content;
+		private final List<Map.Entry<String, String>> headers;
+		private final long fetchMillis;
+
+		Asset(byte[] content, List<Map.Entry<String, String>> headers, long fetchMillis) {
+			this.content = content;
+			this.headers = Collections.unmodifiableList(headers);
+			this.fetchMillis = fetchMillis;
+		}
+
+		public byte[] getContent() {
+			return content;
+		}
+
+		/**
+		 * @return the headers of the original response, in order
+		 */
+		public List<Map.Entry<String, String>> getHeaders() {
+			return headers;
+		}
+
+		/**
+		 * @return how long the original download took
+		 */
+		public long getFetchMillis() {
+			return fetchMillis;
+		}
+	}
+
+}
@@ -0,0 +1,242 @@
+package com.qa.factory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import org.openqa.selenium.PageLoadStrategy;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.firefox.FirefoxOptions;
+import org.openqa.selenium.firefox.FirefoxProfile;
+import org.openqa.selenium.safari.SafariOptions;
+
+import com.qa.util.ConfigManager;
+
+/**
+ * Named set of browser start-up traits, selected with browser.profile and
+ * defined as browser.profile.&lt;name&gt;=trait,trait,... The traits are:
+ * <ul>
+ * <li>headless - no visible window, sized by browser.windowSize</li>
+ * <li>noImages - images are not loaded</li>
+ * <li>noFonts - web fonts are not downloaded</li>
+ * <li>eager - page loads return at DOMContentLoaded</li>
+ * <li>seededProfile - start from a copy of browser.profile.seedDir</li>
+ * <li>maximize - maximize the window (the behaviour without a profile)</li>
+ * </ul>
+ * Start-up times are recorded per browser and profile so the cheapest profile
+ * that still passes can be chosen.
+ */
+public class BrowserProfile {
+
+	public static final String HEADLESS = "headless";
+	public static final String NO_IMAGES = "noImages";
+	public static final String NO_FONTS = "noFonts";
+	public static final String EAGER = "eager";
+	public static final String SEEDED_PROFILE = "seededProfile";
+	public static final String MAXIMIZE = "maximize";
+
+	private static final Map<String, LongSummaryStatistics> STARTUP_TIMES = new TreeMap<String, LongSummaryStatistics>();
+	private static final List<Path> PROFILE_COPIES = new CopyOnWriteArrayList<Path>();
+	private static boolean shutdownHookAdded;
+
+	private final String name;
+	private final Set<String> traits;
+	private final String windowSize;
+	private final String seedDir;
+
+	BrowserProfile(String name, List<String> traits, String windowSize, String seedDir) {
+		this.name = name;
+		this.traits = new LinkedHashSet<String>(traits);
+		this.windowSize = windowSize;
+		this.seedDir = seedDir;
+	}
+
+	/**
+	 * @param config configuration snapshot
+	 * @return the profile named by browser.profile, "default" (maximize only) when
+	 *         it is not set
+	 */
+	public static BrowserProfile fromConfig(ConfigManager config) {
+		String name = config.getString("browser.profile", "default");
+		List<String> traits = config.getList("browser.profile." + name);
+		if (config.getString("browser.profile." + name) == null) {
+			if (!"default".equals(name)) {
+				System.out.println("Browser profile '" + name + "' is not defined, using the default profile");
+			}
+			traits = Collections.singletonList(MAXIMIZE);
+		}
+		return new BrowserProfile(name, traits, config.getString("browser.windowSize", "1920,1080"),
+				config.getString("browser.profile.seedDir", ""));
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public boolean has(String trait) {
+		return traits.contains(trait);
+	}
+
+	ChromeOptions chromeOptions() {
+		ChromeOptions options = new ChromeOptions();
+		if (has(HEADLESS)) {
+			options.addArguments("--headless=new", "--window-size=" + windowSize);
+		}
+		Map<String, Object> prefs = new HashMap<String, Object>();
+		if (has(NO_IMAGES)) {
+			prefs.put("profile.managed_default_content_settings.images", 2);
+			options.addArguments("--blink-settings=imagesEnabled=false");
+		}
+		if (has(NO_FONTS)) {
+			options.addArguments("--disable-remote-fonts");
+		}
+		if (!prefs.isEmpty()) {
+			options.setExperimentalOption("prefs", prefs);
+		}
+		if (has(EAGER)) {
+			options.setPageLoadStrategy(PageLoadStrategy.EAGER);
+		}
+		if (has(SEEDED_PROFILE)) {
+			options.addArguments("--user-data-dir=" + copySeedDir().toAbsolutePath());
+		}
+		return options;
+	}
+
+	FirefoxOptions firefoxOptions() {
+		FirefoxOptions options = new FirefoxOptions();
+		if (has(HEADLESS)) {
+			String[] size = windowSize.split(",");
+			options.addArguments("-headless", "-width=" + size[0].trim(), "-height=" + size[1].trim());
+		}
+		if (has(SEEDED_PROFILE)) {
+			options.setProfile(new FirefoxProfile(seedDirectory().toFile())); // copied by Firefox itself
+		}
+		if (has(NO_IMAGES)) {
+			options.addPreference("permissions.default.image", 2);
+		}
+		if (has(NO_FONTS)) {
+			options.addPreference("browser.display.use_document_fonts", 0);
+		}
+		if (has(EAGER)) {
+			options.setPageLoadStrategy(PageLoadStrategy.EAGER);
+		}
+		return options;
+	}
+
+	SafariOptions safariOptions() {
+		SafariOptions options = new SafariOptions();
+		if (has(EAGER)) {
+			options.setPageLoadStrategy(PageLoadStrategy.EAGER);
+		}
+		for (String trait : traits) {
+			if (!trait.equals(EAGER) && !trait.equals(MAXIMIZE)) {
+				System.out.println("Safari does not support the '" + trait + "' trait, ignored");
+			}
+		}
+		return options;
+	}
+
+	/**
+	 * Size the window of a newly started session.
+	 */
+	void applyWindow(WebDriver driver) {
+		if (has(MAXIMIZE) && !has(HEADLESS)) {
+			driver.manage().window().maximize();
+		}
+	}
+
+	/**
+	 * Record and log how long a session took to start.
+	 *
+	 * @param browser     browser name
+	 * @param startupNanos time from asking for the session to a usable window
+	 */
+	void recordStartup(String browser, long startupNanos) {
+		long millis = startupNanos / 1_000_000;
+		System.out.println("Started " + browser + " with profile '" + name + "' " + traits + " in " + millis + " ms");
+		synchronized (STARTUP_TIMES) {
+			STARTUP_TIMES.computeIfAbsent(browser + "/" + name, key -> new LongSummaryStatistics()).accept(millis);
+			if (!shutdownHookAdded) {
+				shutdownHookAdded = true;
+				Runtime.getRuntime().addShutdownHook(new Thread(BrowserProfile::shutdown));
+			}
+		}
+	}
+
+	/**
+	 * @return count, average and maximum start-up time per browser and profile
+	 */
+	public static String getStartupStats() {
+		StringBuilder stats = new StringBuilder("Browser start-up times:");
+		synchronized (STARTUP_TIMES) {
+			for (Map.Entry<String, LongSummaryStatistics> entry : STARTUP_TIMES.entrySet()) {
+				LongSummaryStatistics times = entry.getValue();
+				stats.append(String.format("%n  %s: %d sessions, avg %.0f ms, max %d ms", entry.getKey(),
+						times.getCount(), times.getAverage(), times.getMax()));
+			}
+		}
+		return stats.toString();
+	}
+
+	private static void shutdown() {
+		System.out.println(getStartupStats());
+		for (Path copy : PROFILE_COPIES) {
+			deleteQuietly(copy);
+		}
+	}
+
+	private Path seedDirectory() {
+		Path seed = Paths.get(seedDir);
+		if (seedDir.isEmpty() || !Files.isDirectory(seed)) {
+			throw new IllegalStateException("browser.profile.seedDir must point to a browser profile directory: " + seedDir);
+		}
+		return seed;
+	}
+
+	/**
+	 * Chrome locks its user data directory, so every session gets its own copy
+	 * of the seed. Copies are removed when the JVM exits.
+	 */
+	private Path copySeedDir() {
+		final Path seed = seedDirectory();
+		final Path copy = Paths.get(System.getProperty("java.io.tmpdir"), "qa-browser-profile-" + UUID.randomUUID());
+		try (Stream<Path> files = Files.walk(seed)) {
+			files.forEach(source -> {
+				try {
+					Files.copy(source, copy.resolve(seed.relativize(source).toString()));
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (IOException | UncheckedIOException e) {
+			throw new IllegalStateException("Unable to copy the seeded browser profile " + seed, e);
+		}
+		PROFILE_COPIES.add(copy);
+		return copy;
+	}
+
+	private static void deleteQuietly(Path directory) {
+		try (Stream<Path> files = Files.walk(directory)) {
+			files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+		} catch (IOException e) {
+			System.out.println("Unable to delete " + directory + ": " + e.getMessage());
+		}
+	}
+
+}
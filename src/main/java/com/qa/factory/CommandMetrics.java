@@ -0,0 +1,256 @@
+package com.qa.factory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * WebDriver command metrics for the scenario running on the current thread.
+ * Every command is counted and timed per step and per scenario, and wall time
+ * is split into command, wait and page-load time. Filled in by
+ * {@link CommandMetricsListener}, the wait engine and the scenario hooks.
+ */
+public class CommandMetrics {
+
+	/** Upper bounds, in milliseconds, of the latency histogram buckets. */
+	static final long[] BUCKETS_MS = { 1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000 };
+
+	private static final ThreadLocal<CommandMetrics> CURRENT = new ThreadLocal<CommandMetrics>();
+
+	private final String scenario;
+	private final Timing total = new Timing();
+	private final List<StepTiming> steps = new ArrayList<StepTiming>();
+	private StepTiming currentStep;
+	private int waitDepth;
+	private long waitStart;
+
+	private CommandMetrics(String scenario) {
+		this.scenario = scenario;
+	}
+
+	/**
+	 * Start collecting metrics for a new scenario on this thread.
+	 *
+	 * @param scenario the scenario name
+	 * @return the new metrics
+	 */
+	public static CommandMetrics startScenario(String scenario) {
+		CommandMetrics metrics = new CommandMetrics(scenario);
+		CURRENT.set(metrics);
+		return metrics;
+	}
+
+	/**
+	 * @return the metrics of the scenario on this thread, or null outside a
+	 *         scenario
+	 */
+	public static CommandMetrics current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Collect into a scenario's metrics on this thread, for work the scenario
+	 * hands to another thread while it does not drive the browser itself.
+	 *
+	 * @param metrics the scenario's metrics, or null to stop collecting
+	 */
+	public static void bind(CommandMetrics metrics) {
+		if (metrics == null) {
+			CURRENT.remove();
+		} else {
+			CURRENT.set(metrics);
+		}
+	}
+
+	/**
+	 * Stop collecting on this thread.
+	 */
+	public static void clear() {
+		CURRENT.remove();
+	}
+
+	/**
+	 * Mark the start of a wait on this thread. Commands issued while waiting are
+	 * counted, but their time is reported as wait time.
+	 */
+	public static void beginWait() {
+		CommandMetrics metrics = CURRENT.get();
+		if (metrics != null && metrics.waitDepth++ == 0) {
+			metrics.waitStart = System.nanoTime();
+		}
+	}
+
+	/**
+	 * Mark the end of a wait started with {@link #beginWait()}.
+	 */
+	public static void endWait() {
+		CommandMetrics metrics = CURRENT.get();
+		if (metrics != null && metrics.waitDepth > 0 && --metrics.waitDepth == 0) {
+			long elapsed = System.nanoTime() - metrics.waitStart;
+			metrics.total.waitNanos += elapsed;
+			if (metrics.currentStep != null) {
+				metrics.currentStep.timing.waitNanos += elapsed;
+			}
+		}
+	}
+
+	/**
+	 * Record one WebDriver command for the scenario on this thread.
+	 *
+	 * @param command  command name, e.g. WebElement.click
+	 * @param nanos    time the command took
+	 * @param pageLoad true for navigation commands
+	 */
+	static void record(String command, long nanos, boolean pageLoad) {
+		CommandMetrics metrics = CURRENT.get();
+		if (metrics != null) {
+			boolean waiting = metrics.waitDepth > 0;
+			metrics.total.record(command, nanos, pageLoad, waiting);
+			if (metrics.currentStep != null) {
+				metrics.currentStep.timing.record(command, nanos, pageLoad, waiting);
+			}
+		}
+	}
+
+	public void startStep(String step) {
+		currentStep = new StepTiming(steps.size() + 1, step);
+		steps.add(currentStep);
+	}
+
+	public void endStep() {
+		if (currentStep != null) {
+			currentStep.wallNanos = System.nanoTime() - currentStep.startNanos;
+			currentStep = null;
+		}
+	}
+
+	public int getCommandCount() {
+		return total.count;
+	}
+
+	/**
+	 * @return the scenario, per-step and per-command metrics as nested maps and
+	 *         lists, ready for JSON serialisation
+	 */
+	public Map<String, Object> toMap() {
+		Map<String, Object> map = new LinkedHashMap<String, Object>();
+		map.put("scenario", scenario);
+		map.put("histogramBucketsMs", toList(BUCKETS_MS));
+		map.putAll(total.toMap());
+		List<Object> stepMaps = new ArrayList<Object>();
+		for (StepTiming step : steps) {
+			Map<String, Object> stepMap = new LinkedHashMap<String, Object>();
+			stepMap.put("index", step.index);
+			stepMap.put("step", step.name);
+			stepMap.put("wallMs", step.wallNanos / 1_000_000.0);
+			stepMap.putAll(step.timing.toMap());
+			stepMaps.add(stepMap);
+		}
+		map.put("steps", stepMaps);
+		return map;
+	}
+
+	/**
+	 * @return a short, human readable summary for the report
+	 */
+	public String getSummary() {
+		StringBuilder summary = new StringBuilder();
+		summary.append(String.format("WebDriver commands: %d (command %.0f ms, wait %.0f ms, page load %.0f ms)",
+				total.count, total.commandNanos / 1e6, total.waitNanos / 1e6, total.pageLoadNanos / 1e6));
+		for (StepTiming step : steps) {
+			summary.append(String.format("%n  %d. %s: %d commands, %.0f ms", step.index, step.name, step.timing.count,
+					step.wallNanos / 1e6));
+		}
+		return summary.toString();
+	}
+
+	private static List<Object> toList(long[] values) {
+		List<Object> list = new ArrayList<Object>(values.length);
+		for (long value : values) {
+			list.add(value);
+		}
+		return list;
+	}
+
+	private static final class StepTiming {
+
+		private final int index;
+		private final String name;
+		private final long startNanos = System.nanoTime();
+		private final Timing timing = new Timing();
+		private long wallNanos;
+
+		StepTiming(int index, String name) {
+			this.index = index;
+			this.name = name;
+		}
+	}
+
+	private static final class Timing {
+
+		private final Map<String, Histogram> commands = new TreeMap<String, Histogram>();
+		private int count;
+		private long commandNanos;
+		private long waitNanos;
+		private long pageLoadNanos;
+
+		void record(String command, long nanos, boolean pageLoad, boolean waiting) {
+			count++;
+			commands.computeIfAbsent(command, key -> new Histogram()).record(nanos);
+			if (waiting) {
+				return; // accounted for as wait time when the wait ends
+			}
+			if (pageLoad) {
+				pageLoadNanos += nanos;
+			} else {
+				commandNanos += nanos;
+			}
+		}
+
+		Map<String, Object> toMap() {
+			Map<String, Object> map = new LinkedHashMap<String, Object>();
+			map.put("commandCount", count);
+			map.put("commandMs", commandNanos / 1e6);
+			map.put("waitMs", waitNanos / 1e6);
+			map.put("pageLoadMs", pageLoadNanos / 1e6);
+			Map<String, Object> commandMaps = new LinkedHashMap<String, Object>();
+			for (Map.Entry<String, Histogram> command : commands.entrySet()) {
+				commandMaps.put(command.getKey(), command.getValue().toMap());
+			}
+			map.put("commands", commandMaps);
+			return map;
+		}
+	}
+
+	private static final class Histogram {
+
+		private final long[] counts = new long[BUCKETS_MS.length + 1];
+		private long count;
+		private long totalNanos;
+		private long maxNanos;
+
+		void record(long nanos) {
+			long millis = nanos / 1_000_000;
+			int bucket = 0;
+			while (bucket < BUCKETS_MS.length && millis > BUCKETS_MS[bucket]) {
+				bucket++;
+			}
+			counts[bucket]++;
+			count++;
+			totalNanos += nanos;
+			maxNanos = Math.max(maxNanos, nanos);
+		}
+
+		Map<String, Object> toMap() {
+			Map<String, Object> map = new LinkedHashMap<String, Object>();
+			map.put("count", count);
+			map.put("totalMs", totalNanos / 1e6);
+			map.put("maxMs", maxNanos / 1e6);
+			map.put("histogram", toList(counts));
+			return map;
+		}
+	}
+
+}
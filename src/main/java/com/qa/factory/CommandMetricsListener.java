@@ -0,0 +1,69 @@
+package com.qa.factory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.openqa.selenium.support.events.WebDriverListener;
+
+/**
+ * Times every call made through a driver decorated by {@link DriverFactory}
+ * and reports it to the {@link CommandMetrics} of the calling thread. Calls
+ * answered without a wire command, such as manage() or switchTo() returning
+ * their local wrapper, are not counted.
+ */
+public class CommandMetricsListener implements WebDriverListener {
+
+	private static final Set<String> PAGE_LOAD_COMMANDS = new HashSet<String>(
+			Arrays.asList("WebDriver.get", "Navigation.to", "Navigation.back", "Navigation.forward",
+					"Navigation.refresh"));
+
+	private static final Set<String> LOCAL_CALLS = new HashSet<String>(Arrays.asList("WebDriver.manage",
+			"WebDriver.navigate", "WebDriver.switchTo", "Options.timeouts", "Options.window", "Options.logs",
+			"WrapsDriver.getWrappedDriver", "WrapsElement.getWrappedElement"));
+
+	private final ThreadLocal<Deque<Long>> startTimes = ThreadLocal.withInitial(ArrayDeque::new);
+
+	@Override
+	public void beforeAnyCall(Object target, Method method, Object[] args) {
+		if (isLocal(method)) {
+			return;
+		}
+		startTimes.get().push(System.nanoTime());
+	}
+
+	@Override
+	public void afterAnyCall(Object target, Method method, Object[] args, Object result) {
+		finish(method);
+	}
+
+	@Override
+	public void onError(Object target, Method method, Object[] args, InvocationTargetException e) {
+		finish(method);
+	}
+
+	private void finish(Method method) {
+		if (isLocal(method)) {
+			return;
+		}
+		Long start = startTimes.get().poll();
+		if (start == null) {
+			return;
+		}
+		String command = commandOf(method);
+		CommandMetrics.record(command, System.nanoTime() - start, PAGE_LOAD_COMMANDS.contains(command));
+	}
+
+	private static String commandOf(Method method) {
+		return method.getDeclaringClass().getSimpleName() + "." + method.getName();
+	}
+
+	private static boolean isLocal(Method method) {
+		return method.getDeclaringClass() == Object.class || LOCAL_CALLS.contains(commandOf(method));
+	}
+
+}
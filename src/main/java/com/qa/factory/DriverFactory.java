@@ -1,10 +1,20 @@
 package com.qa.factory;
 
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.firefox.FirefoxDriver;
 
 import org.openqa.selenium.safari.SafariDriver;
+import org.openqa.selenium.support.events.EventFiringDecorator;
+
+import com.qa.util.ConfigManager;
 
 import io.github.bonigarcia.wdm.WebDriverManager;
 
@@ -14,10 +24,22 @@ public class DriverFactory {
 
 	public static ThreadLocal<WebDriver> tlDriver = new ThreadLocal<WebDriver>();
 
+	private static volatile DriverPool driverPool;
+
+	private static final Map<String, Boolean> RESOLVED_DRIVERS = new ConcurrentHashMap<String, Boolean>();
+
+	/**
+	 * The network layer of each session, closed when the session quits. Keyed
+	 * by identity, so lookups do not depend on the decorating proxy's equals.
+	 */
+	private static final Map<WebDriver, NetworkLayer> NETWORK_LAYERS = Collections
+			.synchronizedMap(new IdentityHashMap<WebDriver, NetworkLayer>());
+
 	/**
 	 * This method is used to initialize the thradlocal driver on the basis of given
-	 * browser
-	 * 
+	 * browser. When driver.pool.enabled is true a warm session is taken from the
+	 * per-JVM {@link DriverPool} instead of starting a new browser.
+	 *
 	 * @param browser
 	 * @return this will return tldriver.
 	 */
@@ -25,31 +47,179 @@ public class DriverFactory {
 
 		System.out.println("browser value is: " + browser);
 
+		if (isPoolEnabled()) {
+			tlDriver.set(getPool().acquire(browser));
+		} else {
+			tlDriver.set(createDriver(browser));
+			getDriver().manage().deleteAllCookies();
+		}
+
+		driver = getDriver();
+		return getDriver();
+
+	}
+
+	/**
+	 * This method is used to end the scenario's use of the thread local driver.
+	 * Pooled sessions are reset and returned to the pool, others are quit.
+	 */
+	public void quit_driver() {
+		WebDriver current = getDriver();
+		if (current == null) {
+			return;
+		}
+		if (isPoolEnabled()) {
+			getPool().release(current);
+		} else {
+			quit(current);
+		}
+		tlDriver.remove();
+	}
+
+	/**
+	 * @return the network layer of the thread's session, or null when its
+	 *         traffic is not intercepted (network.intercept.enabled)
+	 */
+	public static NetworkLayer getNetworkLayer() {
+		WebDriver current = getDriver();
+		return current == null ? null : NETWORK_LAYERS.get(current);
+	}
+
+	/**
+	 * this is used to get the driver with ThreadLocal. Each scenario thread sees
+	 * only its own driver, so no locking is needed.
+	 *
+	 * @return
+	 */
+	public static WebDriver getDriver() {
+		return tlDriver.get();
+	}
+
+	/**
+	 * @return the shared pool, or null when pooling has not been used in this JVM
+	 */
+	public static DriverPool getDriverPool() {
+		return driverPool;
+	}
+
+	private boolean isPoolEnabled() {
+		return ConfigManager.get().getBoolean("driver.pool.enabled", false);
+	}
+
+	private static DriverPool getPool() {
+		if (driverPool == null) {
+			synchronized (DriverFactory.class) {
+				if (driverPool == null) {
+					final DriverPool pool = new DriverPool(ConfigManager.get(), new DriverPool.SessionFactory() {
+
+						@Override
+						public WebDriver create(String browser) {
+							return createDriver(browser);
+						}
+
+						@Override
+						public void destroy(WebDriver driver) {
+							try {
+								quit(driver);
+							} catch (Exception e) {
+								System.out.println("Unable to quit browser session: " + e.getMessage());
+							}
+						}
+					});
+					Runtime.getRuntime().addShutdownHook(new Thread(pool::shutdown));
+					driverPool = pool;
+				}
+			}
+		}
+		return driverPool;
+	}
+
+	private static WebDriver createDriver(String browser) {
+		BrowserProfile profile = BrowserProfile.fromConfig(ConfigManager.get());
+		resolveDriverBinary(browser);
+		long start = System.nanoTime();
+		WebDriver newDriver;
+		NetworkLayer network = null;
 		if (browser.equals("chrome")) {
-			WebDriverManager.chromedriver().setup();
-			tlDriver.set(new ChromeDriver());
+			newDriver = new ChromeDriver(profile.chromeOptions());
+			network = NetworkLayer.attach(newDriver); // before decorating, DevTools needs the real driver
 		} else if (browser.equals("firefox")) {
-			WebDriverManager.firefoxdriver().setup();
-			tlDriver.set(new FirefoxDriver());
+			newDriver = new FirefoxDriver(profile.firefoxOptions());
 		} else if (browser.equals("safari")) {
-			tlDriver.set(new SafariDriver());
+			newDriver = new SafariDriver(profile.safariOptions());
 		} else {
 			System.out.println("Please pass the correct browser value: " + browser);
+			throw new IllegalArgumentException("Unsupported browser: " + browser);
 		}
 
-		getDriver().manage().deleteAllCookies();
-		getDriver().manage().window().maximize();
-		return getDriver();
+		profile.applyWindow(newDriver);
+		profile.recordStartup(browser, System.nanoTime() - start);
+		WebDriver instrumented = instrument(newDriver);
+		if (network != null) {
+			NETWORK_LAYERS.put(instrumented, network);
+		}
+		return instrumented;
+	}
 
+	/**
+	 * Quit a session, closing its network layer first.
+	 */
+	private static void quit(WebDriver session) {
+		NetworkLayer network = NETWORK_LAYERS.remove(session);
+		if (network != null) {
+			network.close();
+		}
+		session.quit();
 	}
 
 	/**
-	 * this is used to get the driver with ThreadLocal
-	 * 
-	 * @return
+	 * Resolve the driver binary once per JVM instead of on every session. A
+	 * binary configured as driver.binary.&lt;browser&gt; is used as is, without
+	 * any lookup. Otherwise WebDriverManager resolves it into driver.cache.path,
+	 * pinned to driver.version.&lt;browser&gt; when set, so a warm cache needs no
+	 * network.
 	 */
-	public static synchronized WebDriver getDriver() {
-		return tlDriver.get();
+	private static void resolveDriverBinary(final String browser) {
+		RESOLVED_DRIVERS.computeIfAbsent(browser, key -> {
+			ConfigManager config = ConfigManager.get();
+			String property = browser.equals("chrome") ? "webdriver.chrome.driver"
+					: browser.equals("firefox") ? "webdriver.gecko.driver" : null;
+			if (property == null) {
+				return Boolean.TRUE; // safaridriver ships with the OS
+			}
+			String binary = config.getString("driver.binary." + browser, "");
+			if (!binary.isEmpty() && Files.isExecutable(Paths.get(binary))) {
+				System.setProperty(property, binary);
+				System.out.println("Using local " + browser + " driver binary " + binary);
+				return Boolean.TRUE;
+			}
+			long start = System.nanoTime();
+			WebDriverManager manager = browser.equals("chrome") ? WebDriverManager.chromedriver()
+					: WebDriverManager.firefoxdriver();
+			String cachePath = config.getString("driver.cache.path", "");
+			if (!cachePath.isEmpty()) {
+				manager.cachePath(cachePath);
+			}
+			String version = config.getString("driver.version." + browser, "");
+			if (!version.isEmpty()) {
+				manager.driverVersion(version);
+			}
+			manager.setup();
+			System.out.println("Resolved " + browser + " driver in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+			return Boolean.TRUE;
+		});
+	}
+
+	/**
+	 * Wrap the driver so every command it executes is timed into the
+	 * {@link CommandMetrics} of the calling scenario thread. Disabled with
+	 * metrics.commands.enabled=false.
+	 */
+	private static WebDriver instrument(WebDriver rawDriver) {
+		if (!ConfigManager.get().getBoolean("metrics.commands.enabled", true)) {
+			return rawDriver;
+		}
+		return new EventFiringDecorator<WebDriver>(new CommandMetricsListener()).decorate(rawDriver);
 	}
 
 }
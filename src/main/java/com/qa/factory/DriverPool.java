@@ -0,0 +1,202 @@
+package com.qa.factory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import com.qa.util.ConfigManager;
+
+/**
+ * Per-JVM pool of warm browser sessions. Sessions are handed out by
+ * {@link DriverFactory}, reset between scenarios and recycled after a
+ * configurable number of scenarios, which bounds what a leaking browser can
+ * accumulate.
+ */
+public class DriverPool {
+
+	/**
+	 * Creates and destroys the real browser sessions behind the pool.
+	 */
+	public interface SessionFactory {
+
+		WebDriver create(String browser);
+
+		void destroy(WebDriver driver);
+	}
+
+	private static final String BLANK_PAGE = "about:blank";
+
+	private final SessionFactory sessionFactory;
+	private final int maxIdle;
+	private final int maxScenariosPerSession;
+
+	private final Map<String, ConcurrentLinkedDeque<PooledSession>> idleSessions = new ConcurrentHashMap<String, ConcurrentLinkedDeque<PooledSession>>();
+	private final Map<WebDriver, PooledSession> leasedSessions = new ConcurrentHashMap<WebDriver, PooledSession>();
+
+	private final AtomicInteger hits = new AtomicInteger();
+	private final AtomicInteger misses = new AtomicInteger();
+	private final AtomicInteger recycled = new AtomicInteger();
+	private final AtomicInteger resets = new AtomicInteger();
+	private final AtomicLong resetNanos = new AtomicLong();
+
+	/**
+	 * Creates a pool configured from the driver.pool.* settings.
+	 *
+	 * @param config         configuration snapshot
+	 * @param sessionFactory factory used to start and stop browsers
+	 */
+	public DriverPool(ConfigManager config, SessionFactory sessionFactory) {
+		this.sessionFactory = sessionFactory;
+		this.maxIdle = config.getInt("driver.pool.maxIdle", 4);
+		this.maxScenariosPerSession = config.getInt("driver.pool.maxScenariosPerSession", 25);
+	}
+
+	/**
+	 * This method is used to hand out a warm session for the given browser,
+	 * starting a new one when none is idle.
+	 *
+	 * @param browser
+	 * @return a browser session sitting on about:blank
+	 */
+	public WebDriver acquire(String browser) {
+		ConcurrentLinkedDeque<PooledSession> idle = idleFor(browser);
+		PooledSession session = idle.pollFirst();
+		if (session != null) {
+			hits.incrementAndGet();
+		} else {
+			misses.incrementAndGet();
+			session = new PooledSession(browser, sessionFactory.create(browser));
+		}
+		leasedSessions.put(session.driver, session);
+		return session.driver;
+	}
+
+	/**
+	 * This method is used to give a session back to the pool. The session is
+	 * reset for the next scenario, or quit when it has served its quota or
+	 * cannot be reset.
+	 *
+	 * @param driver
+	 */
+	public void release(WebDriver driver) {
+		PooledSession session = leasedSessions.remove(driver);
+		if (session == null) {
+			sessionFactory.destroy(driver);
+			return;
+		}
+
+		session.scenarios++;
+		if (session.scenarios >= maxScenariosPerSession) {
+			recycle(session);
+			return;
+		}
+
+		long start = System.nanoTime();
+		boolean clean = reset(driver);
+		resetNanos.addAndGet(System.nanoTime() - start);
+		resets.incrementAndGet();
+
+		ConcurrentLinkedDeque<PooledSession> idle = idleFor(session.browser);
+		if (clean && idle.size() < maxIdle) {
+			idle.offerFirst(session);
+		} else {
+			recycle(session);
+		}
+	}
+
+	/**
+	 * This method is used to quit every idle session, typically at JVM
+	 * shutdown.
+	 */
+	public void shutdown() {
+		for (ConcurrentLinkedDeque<PooledSession> idle : idleSessions.values()) {
+			PooledSession session;
+			while ((session = idle.pollFirst()) != null) {
+				sessionFactory.destroy(session.driver);
+			}
+		}
+		System.out.println(getStats());
+	}
+
+	/**
+	 * @return a one line summary of pool hits, misses, recycles and reset time
+	 */
+	public String getStats() {
+		int hitCount = hits.get();
+		int total = hitCount + misses.get();
+		int resetCount = resets.get();
+		return String.format(
+				"Driver pool: %d acquisitions, %d hits, %d misses (hit ratio %.1f%%), %d recycled, %d resets, avg reset %.1f ms",
+				total, hitCount, misses.get(), total == 0 ? 0.0 : 100.0 * hitCount / total, recycled.get(), resetCount,
+				resetCount == 0 ? 0.0 : resetNanos.get() / 1_000_000.0 / resetCount);
+	}
+
+	public int getHits() {
+		return hits.get();
+	}
+
+	public int getMisses() {
+		return misses.get();
+	}
+
+	public int getRecycled() {
+		return recycled.get();
+	}
+
+	public long getTotalResetNanos() {
+		return resetNanos.get();
+	}
+
+	private ConcurrentLinkedDeque<PooledSession> idleFor(String browser) {
+		return idleSessions.computeIfAbsent(browser, key -> new ConcurrentLinkedDeque<PooledSession>());
+	}
+
+	private void recycle(PooledSession session) {
+		recycled.incrementAndGet();
+		sessionFactory.destroy(session.driver);
+	}
+
+	/**
+	 * Brings the browser back to a clean state: a single tab on about:blank with
+	 * no cookies and empty web storage.
+	 */
+	private boolean reset(WebDriver driver) {
+		try {
+			List<String> handles = new ArrayList<String>(driver.getWindowHandles());
+			for (int i = 1; i < handles.size(); i++) {
+				driver.switchTo().window(handles.get(i));
+				driver.close();
+			}
+			driver.switchTo().window(handles.get(0));
+
+			driver.manage().deleteAllCookies();
+			((JavascriptExecutor) driver).executeScript(
+					"try { window.localStorage.clear(); window.sessionStorage.clear(); } catch (e) {}");
+			driver.get(BLANK_PAGE);
+			return true;
+		} catch (Exception e) {
+			System.out.println("Unable to reset browser session, it will be recycled: " + e.getMessage());
+			return false;
+		}
+	}
+
+	private static class PooledSession {
+
+		private final String browser;
+		private final WebDriver driver;
+		private int scenarios;
+
+		PooledSession(String browser, WebDriver driver) {
+			this.browser = browser;
+			this.driver = driver;
+		}
+	}
+
+}
@@ -0,0 +1,260 @@
+package com.qa.factory;
+
+import java.nio.file.Paths;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.devtools.NetworkInterceptor;
+import org.openqa.selenium.remote.http.Contents;
+import org.openqa.selenium.remote.http.Filter;
+import org.openqa.selenium.remote.http.HttpHandler;
+import org.openqa.selenium.remote.http.HttpMethod;
+import org.openqa.selenium.remote.http.HttpResponse;
+
+import com.qa.util.ConfigManager;
+
+/**
+ * DevTools request filter for Chromium sessions. Requests whose url contains
+ * one of network.block.patterns (analytics, tag managers, ...) are answered
+ * with an empty response without leaving the browser, and GET requests for
+ * static assets (network.cache.extensions) are served from an
+ * {@link AssetCache} after the first download, with the headers of the
+ * original response. Bytes and milliseconds saved are collected per page, to
+ * be reported with {@link #flushPages()}, and logged in total when the JVM
+ * exits.
+ */
+public class NetworkLayer implements Filter {
+
+	private static final AtomicLong TOTAL_BLOCKED = new AtomicLong();
+	private static final AtomicLong TOTAL_HITS = new AtomicLong();
+	private static final AtomicLong TOTAL_BYTES_SAVED = new AtomicLong();
+	private static final AtomicLong TOTAL_MILLIS_SAVED = new AtomicLong();
+	private static volatile boolean shutdownHookAdded;
+
+	/**
+	 * Not replayed from the cache: the body is stored decoded and its length
+	 * is set from the cached bytes, and cookies belong to the original request.
+	 */
+	private static final Set<String> UNCACHED_HEADERS = new HashSet<String>(Arrays.asList("content-length",
+			"content-encoding", "transfer-encoding", "connection", "keep-alive", "set-cookie"));
+
+	private final List<String> blockPatterns;
+	private final Pattern cacheable;
+	private final AssetCache cache;
+
+	private NetworkInterceptor interceptor;
+	private List<String> pageReports = new ArrayList<String>();
+	private String page;
+	private long pageBlocked;
+	private long pageHits;
+	private long pageBytesSaved;
+	private long pageMillisSaved;
+	private long blocked;
+	private long hits;
+	private long bytesSaved;
+
+	/**
+	 * @param blockPatterns url fragments of requests to block
+	 * @param extensions    file extensions of assets to cache
+	 * @param cache         the shared asset cache
+	 */
+	public NetworkLayer(List<String> blockPatterns, List<String> extensions, AssetCache cache) {
+		this.blockPatterns = blockPatterns;
+		this.cacheable = Pattern.compile(".*\\.(" + String.join("|", extensions) + ")([?#].*)?$",
+				Pattern.CASE_INSENSITIVE);
+		this.cache = cache;
+	}
+
+	/**
+	 * Start intercepting the network traffic of a newly created session when
+	 * network.intercept.enabled is true and the browser supports DevTools.
+	 *
+	 * @param driver the undecorated driver
+	 * @return the layer, to be closed with the session, or null when
+	 *         interception is not used
+	 */
+	public static NetworkLayer attach(WebDriver driver) {
+		ConfigManager config = ConfigManager.get();
+		if (!config.getBoolean("network.intercept.enabled", false)) {
+			return null;
+		}
+		if (!(driver instanceof HasDevTools)) {
+			System.out.println("Network interception needs a Chromium based browser, skipped");
+			return null;
+		}
+		AssetCache cache = new AssetCache(Paths.get(config.getString("network.cache.dir", "target/asset-cache")),
+				config.getLong("network.cache.ttlMinutes", 60));
+		NetworkLayer layer = new NetworkLayer(config.getList("network.block.patterns"),
+				config.getList("network.cache.extensions"), cache);
+		if (!shutdownHookAdded) {
+			shutdownHookAdded = true;
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.println(getTotals())));
+		}
+		layer.interceptor = new NetworkInterceptor(driver, layer);
+		return layer;
+	}
+
+	/**
+	 * Stop intercepting the session's traffic; called before the session quits.
+	 */
+	public void close() {
+		NetworkInterceptor attached;
+		synchronized (this) {
+			attached = interceptor;
+			interceptor = null;
+		}
+		if (attached != null) {
+			attached.close();
+		}
+	}
+
+	@Override
+	public HttpHandler apply(final HttpHandler next) {
+		return request -> {
+			String url = request.getUri();
+			String accept = request.getHeader("Accept");
+			if (request.getMethod() == HttpMethod.GET && accept != null && accept.startsWith("text/html")) {
+				startPage(url);
+			}
+			if (isBlocked(url)) {
+				recordBlocked();
+				return new HttpResponse().setStatus(204);
+			}
+			boolean cacheableAsset = request.getMethod() == HttpMethod.GET && cacheable.matcher(url).matches();
+			if (cacheableAsset) {
+				AssetCache.Asset asset = cache.get(url);
+				if (asset != null) {
+					recordHit(asset.getContent().length, asset.getFetchMillis());
+					HttpResponse cached = new HttpResponse().setStatus(200);
+					for (Map.Entry<String, String> header : asset.getHeaders()) {
+						cached.addHeader(header.getKey(), header.getValue());
+					}
+					return cached.setContent(Contents.bytes(asset.getContent()));
+				}
+			}
+			long start = System.nanoTime();
+			HttpResponse response = next.execute(request);
+			if (cacheableAsset && response.getStatus() == 200) {
+				byte[] body = Contents.bytes(response.getContent());
+				cache.put(url, body, headersOf(response), (System.nanoTime() - start) / 1_000_000);
+				response.setContent(Contents.bytes(body));
+			}
+			return response;
+		};
+	}
+
+	/**
+	 * @return requests blocked by this layer
+	 */
+	public synchronized long getBlocked() {
+		return blocked;
+	}
+
+	/**
+	 * @return assets this layer served from the cache
+	 */
+	public synchronized long getCacheHits() {
+		return hits;
+	}
+
+	/**
+	 * @return bytes this layer served from the cache instead of downloading
+	 */
+	public synchronized long getBytesSaved() {
+		return bytesSaved;
+	}
+
+	private static List<Map.Entry<String, String>> headersOf(HttpResponse response) {
+		List<Map.Entry<String, String>> headers = new ArrayList<Map.Entry<String, String>>();
+		for (String name : response.getHeaderNames()) {
+			if (UNCACHED_HEADERS.contains(name.toLowerCase())) {
+				continue;
+			}
+			for (String value : response.getHeaders(name)) {
+				headers.add(new SimpleImmutableEntry<String, String>(name, value));
+			}
+		}
+		return headers;
+	}
+
+	/**
+	 * End the current page and hand over what every page since the last call
+	 * saved, one line per page. Pages that saved nothing are left out.
+	 *
+	 * @return the page reports, oldest first
+	 */
+	public synchronized List<String> flushPages() {
+		endPage();
+		page = null;
+		List<String> reports = pageReports;
+		pageReports = new ArrayList<String>();
+		return reports;
+	}
+
+	/**
+	 * @return requests blocked, served from cache and what that saved, for every
+	 *         session in this JVM
+	 */
+	public static String getTotals() {
+		return String.format("Network layer: %d requests blocked, %d assets from cache, %d KB and %d ms saved",
+				TOTAL_BLOCKED.get(), TOTAL_HITS.get(), TOTAL_BYTES_SAVED.get() / 1024, TOTAL_MILLIS_SAVED.get());
+	}
+
+	private boolean isBlocked(String url) {
+		for (String pattern : blockPatterns) {
+			if (url.contains(pattern)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * A document request starts a new page and ends the previous one.
+	 */
+	private synchronized void startPage(String url) {
+		endPage();
+		page = url;
+	}
+
+	/**
+	 * Keep what the current page saved for the next {@link #flushPages()}.
+	 */
+	private void endPage() {
+		if (page != null && (pageBlocked > 0 || pageHits > 0)) {
+			pageReports.add(String.format("Network layer %s: %d blocked, %d from cache, %d KB and %d ms saved", page,
+					pageBlocked, pageHits, pageBytesSaved / 1024, pageMillisSaved));
+		}
+		pageBlocked = 0;
+		pageHits = 0;
+		pageBytesSaved = 0;
+		pageMillisSaved = 0;
+	}
+
+	private synchronized void recordBlocked() {
+		blocked++;
+		pageBlocked++;
+		TOTAL_BLOCKED.incrementAndGet();
+	}
+
+	private synchronized void recordHit(long bytes, long millis) {
+		hits++;
+		bytesSaved += bytes;
+		pageHits++;
+		pageBytesSaved += bytes;
+		pageMillisSaved += millis;
+		TOTAL_HITS.incrementAndGet();
+		TOTAL_BYTES_SAVED.addAndGet(bytes);
+		TOTAL_MILLIS_SAVED.addAndGet(millis);
+	}
+
+}
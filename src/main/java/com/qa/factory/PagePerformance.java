@@ -0,0 +1,361 @@
+package com.qa.factory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.openqa.selenium.HasCapabilities;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.json.JsonException;
+import org.openqa.selenium.json.JsonOutput;
+
+import com.qa.util.ConfigManager;
+
+/**
+ * How fast the application under test responds, for the scenario running on
+ * the current thread. Every page the browser navigates to is sampled once
+ * from the browser's own Navigation Timing, Paint Timing and Resource Timing
+ * entries. Scenarios can set a load time budget per page; pages over budget
+ * fail the scenario when it ends, and every sample is appended to a per-page
+ * trend file whose recent history is summarised in the report.
+ */
+public class PagePerformance {
+
+	/**
+	 * Waits for the load event (at most arguments[0] ms) and returns the timing
+	 * of the current document in milliseconds from the start of its navigation,
+	 * with the five slowest resources.
+	 */
+	private static final String CAPTURE_SCRIPT = "var timeout = arguments[0], done = arguments[arguments.length - 1], sent = false;"
+			+ "function round(value) { return value > 0 ? Math.round(value) : null; }"
+			+ "function collect() { if (sent) { return; } sent = true;"
+			+ "  var perf = window.performance, nav = perf.getEntriesByType ? perf.getEntriesByType('navigation')[0] : null;"
+			+ "  var result = { url: location.href, title: document.title,"
+			+ "    timeOrigin: perf.timeOrigin || perf.timing.navigationStart };"
+			+ "  if (nav) { result.ttfbMs = round(nav.responseStart); result.domContentLoadedMs = round(nav.domContentLoadedEventEnd);"
+			+ "    result.loadMs = round(nav.loadEventEnd); result.transferBytes = nav.transferSize || 0; }"
+			+ "  else { var t = perf.timing, start = t.navigationStart;"
+			+ "    result.ttfbMs = round(t.responseStart - start); result.domContentLoadedMs = round(t.domContentLoadedEventEnd - start);"
+			+ "    result.loadMs = round(t.loadEventEnd - start); }"
+			+ "  var paints = perf.getEntriesByType ? perf.getEntriesByType('paint') : [];"
+			+ "  for (var p = 0; p < paints.length; p++) {"
+			+ "    if (paints[p].name === 'first-paint') { result.firstPaintMs = round(paints[p].startTime); }"
+			+ "    if (paints[p].name === 'first-contentful-paint') { result.firstContentfulPaintMs = round(paints[p].startTime); } }"
+			+ "  var resources = perf.getEntriesByType ? perf.getEntriesByType('resource') : [], bytes = 0;"
+			+ "  for (var r = 0; r < resources.length; r++) { bytes += resources[r].transferSize || 0; }"
+			+ "  var slowest = resources.slice().sort(function(a, b) { return b.duration - a.duration; }).slice(0, 5);"
+			+ "  result.resourceCount = resources.length; result.resourceBytes = bytes; result.slowestResources = [];"
+			+ "  for (var s = 0; s < slowest.length; s++) { result.slowestResources.push({ url: slowest[s].name,"
+			+ "    type: slowest[s].initiatorType, durationMs: Math.round(slowest[s].duration) }); }"
+			+ "  done(result); }"
+			+ "if (document.readyState === 'complete') { setTimeout(collect, 0); }"
+			// loadEventEnd is only set after the load handlers have run
+			+ "else { window.addEventListener('load', function() { setTimeout(collect, 0); }); setTimeout(collect, timeout); }";
+
+	private static final ThreadLocal<PagePerformance> CURRENT = new ThreadLocal<PagePerformance>();
+
+	private final String scenario;
+	private final List<Map<String, Object>> samples = new ArrayList<Map<String, Object>>();
+	private final Map<String, Long> budgets = new LinkedHashMap<String, Long>();
+	private Object lastTimeOrigin;
+
+	private PagePerformance(String scenario) {
+		this.scenario = scenario;
+	}
+
+	/**
+	 * Start collecting page timings for a new scenario on this thread, when
+	 * perf.enabled is true.
+	 *
+	 * @param scenario the scenario name
+	 * @return the new collector, or null when disabled
+	 */
+	public static PagePerformance startScenario(String scenario) {
+		return startScenario(scenario, ConfigManager.get().getBoolean("perf.enabled", false));
+	}
+
+	/**
+	 * Start collecting page timings for a new scenario on this thread.
+	 *
+	 * @param scenario the scenario name
+	 * @param enabled  false to collect nothing, e.g. perf.enabled, or true for
+	 *                 scenarios that check timings themselves
+	 * @return the new collector, or null when disabled
+	 */
+	public static PagePerformance startScenario(String scenario, boolean enabled) {
+		if (!enabled) {
+			CURRENT.remove();
+			return null;
+		}
+		PagePerformance performance = new PagePerformance(scenario);
+		CURRENT.set(performance);
+		return performance;
+	}
+
+	/**
+	 * @return the collector of the scenario on this thread, or null outside a
+	 *         scenario or when disabled
+	 */
+	public static PagePerformance current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Stop collecting on this thread.
+	 */
+	public static void clear() {
+		CURRENT.remove();
+	}
+
+	/**
+	 * Sample the document currently open in the browser, unless it has already
+	 * been sampled. Waits for the load event, at most perf.loadTimeoutMs, unless
+	 * the browser uses the eager or none page load strategy, whose sessions do
+	 * not wait for it either; such a sample may lack the load time. Does nothing
+	 * outside a scenario; a browser that cannot report its timings is logged and
+	 * ignored.
+	 *
+	 * @param driver the scenario's driver
+	 * @param page   name the budget and trend file use for the page, or null to
+	 *               use the path of its url
+	 */
+	@SuppressWarnings("unchecked")
+	public static void capture(WebDriver driver, String page) {
+		PagePerformance performance = CURRENT.get();
+		if (performance == null || !(driver instanceof JavascriptExecutor)) {
+			return;
+		}
+		Map<String, Object> sample;
+		try {
+			sample = (Map<String, Object>) ((JavascriptExecutor) driver).executeAsyncScript(CAPTURE_SCRIPT,
+					waitsForLoad(driver) ? ConfigManager.get().getLong("perf.loadTimeoutMs", 10000) : 0);
+		} catch (WebDriverException | ClassCastException e) {
+			System.out.println("Unable to read page timings: " + e.getMessage());
+			return;
+		}
+		if (sample == null || sample.get("timeOrigin") == null) {
+			return;
+		}
+		if (sample.get("timeOrigin").equals(performance.lastTimeOrigin)) {
+			return; // same document as the last sample
+		}
+		performance.lastTimeOrigin = sample.get("timeOrigin");
+		Map<String, Object> named = new LinkedHashMap<String, Object>();
+		named.put("page", page != null ? page : pathOf(String.valueOf(sample.get("url"))));
+		named.putAll(sample);
+		named.remove("timeOrigin");
+		performance.samples.add(named);
+	}
+
+	/**
+	 * Set the load time budget of a page for this scenario, overriding
+	 * perf.budget.&lt;page&gt;.
+	 *
+	 * @param page   the page name used when it was captured
+	 * @param loadMs the longest acceptable time to the end of the load event
+	 */
+	public void setBudget(String page, long loadMs) {
+		budgets.put(page, loadMs);
+	}
+
+	/**
+	 * @param page the page name used when it was captured
+	 * @return the load times of every visit to the page in this scenario
+	 */
+	public List<Long> getLoadTimes(String page) {
+		List<Long> loadTimes = new ArrayList<Long>();
+		for (Map<String, Object> sample : samples) {
+			if (page.equals(sample.get("page")) && sample.get("loadMs") instanceof Number) {
+				loadTimes.add(((Number) sample.get("loadMs")).longValue());
+			}
+		}
+		return loadTimes;
+	}
+
+	public List<Map<String, Object>> getSamples() {
+		return Collections.unmodifiableList(samples);
+	}
+
+	/**
+	 * @return every visit over its page's budget; the load time is used, or the
+	 *         DOMContentLoaded time when the load event had not finished
+	 */
+	public List<String> getBudgetViolations() {
+		ConfigManager config = ConfigManager.get();
+		List<String> violations = new ArrayList<String>();
+		for (Map<String, Object> sample : samples) {
+			String page = String.valueOf(sample.get("page"));
+			Long budget = budgets.containsKey(page) ? budgets.get(page) : null;
+			if (budget == null && config.getString("perf.budget." + page) != null) {
+				budget = config.getLong("perf.budget." + page, Long.MAX_VALUE);
+			}
+			Object measured = sample.get("loadMs") != null ? sample.get("loadMs") : sample.get("domContentLoadedMs");
+			if (budget != null && measured instanceof Number && ((Number) measured).longValue() > budget) {
+				violations.add(String.format("%s took %d ms, budget %d ms (%s)", page, ((Number) measured).longValue(),
+						budget, sample.get("url")));
+			}
+		}
+		return violations;
+	}
+
+	/**
+	 * @return one line per visited page for the report
+	 */
+	public String getSummary() {
+		StringBuilder summary = new StringBuilder("Page timings:");
+		for (Map<String, Object> sample : samples) {
+			summary.append(String.format("%n  %s: ttfb %s ms, DOMContentLoaded %s ms, load %s ms, FCP %s ms, %s resources",
+					sample.get("page"), sample.get("ttfbMs"), sample.get("domContentLoadedMs"), sample.get("loadMs"),
+					sample.get("firstContentfulPaintMs"), sample.get("resourceCount")));
+		}
+		return summary.toString();
+	}
+
+	/**
+	 * Append every sample as one JSON line to &lt;directory&gt;/&lt;page&gt;.jsonl,
+	 * so load times can be followed across runs.
+	 *
+	 * @param directory where the trend files are kept
+	 */
+	public void writeTrends(Path directory) {
+		for (Map<String, Object> sample : samples) {
+			Map<String, Object> line = new LinkedHashMap<String, Object>();
+			line.put("timestamp", System.currentTimeMillis());
+			line.put("scenario", scenario);
+			line.putAll(sample);
+			line.remove("slowestResources");
+			StringBuilder json = new StringBuilder();
+			try (JsonOutput output = new Json().newOutput(json)) {
+				output.setPrettyPrint(false).write(line);
+			}
+			Path file = trendFile(directory, String.valueOf(sample.get("page")));
+			synchronized (PagePerformance.class) {
+				try {
+					Files.createDirectories(directory);
+					Files.write(file, (json + System.lineSeparator()).getBytes(StandardCharsets.UTF_8),
+							StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+				} catch (IOException e) {
+					System.out.println("Unable to write page timings to " + file + ": " + e.getMessage());
+				}
+			}
+		}
+	}
+
+	/**
+	 * The load times of the latest visits to each page of this scenario, read
+	 * back from the end of the trend files, so the report shows how they moved
+	 * across runs. Call after {@link #writeTrends(Path)}.
+	 *
+	 * @param directory where the trend files are kept
+	 * @param visits    how many of the latest visits per page
+	 * @return one line per visited page
+	 */
+	public String getTrendSummary(Path directory, int visits) {
+		Set<String> pages = new LinkedHashSet<String>();
+		for (Map<String, Object> sample : samples) {
+			pages.add(String.valueOf(sample.get("page")));
+		}
+		Json json = new Json();
+		StringBuilder summary = new StringBuilder("Page load trends (ms, oldest first):");
+		for (String page : pages) {
+			List<Long> latest = new ArrayList<Long>();
+			try {
+				List<String> lines;
+				synchronized (PagePerformance.class) {
+					lines = tail(trendFile(directory, page), visits);
+				}
+				for (String line : lines) {
+					Map<String, Object> visit = json.toType(line, Json.MAP_TYPE);
+					if (visit.get("loadMs") instanceof Number) {
+						latest.add(((Number) visit.get("loadMs")).longValue());
+					}
+				}
+			} catch (IOException | JsonException e) {
+				summary.append(String.format("%n  %s: unable to read trend: %s", page, e.getMessage()));
+				continue;
+			}
+			List<Long> sorted = new ArrayList<Long>(latest);
+			Collections.sort(sorted);
+			summary.append(String.format("%n  %s: %s, median %s ms over the last %d visits", page, latest,
+					sorted.isEmpty() ? "-" : sorted.get(sorted.size() / 2), latest.size()));
+		}
+		return summary.toString();
+	}
+
+	/**
+	 * The last non-empty lines of a file, read backwards in blocks from its end,
+	 * so the cost does not grow with the file.
+	 */
+	static List<String> tail(Path file, int count) throws IOException {
+		List<String> lines = new ArrayList<String>();
+		try (RandomAccessFile in = new RandomAccessFile(file.toFile(), "r")) {
+			long end = in.length();
+			byte[] block = new byte[8192];
+			ByteArrayOutputStream line = new ByteArrayOutputStream();
+			for (long position = end; position > 0 && lines.size() < count;) {
+				int length = (int) Math.min(block.length, position);
+				position -= length;
+				in.seek(position);
+				in.readFully(block, 0, length);
+				for (int i = length - 1; i >= 0 && lines.size() < count; i--) {
+					if (block[i] == '\n') {
+						addReversed(line, lines);
+					} else {
+						line.write(block[i]);
+					}
+				}
+			}
+			if (lines.size() < count) {
+				addReversed(line, lines);
+			}
+		}
+		Collections.reverse(lines);
+		return lines;
+	}
+
+	private static void addReversed(ByteArrayOutputStream reversed, List<String> lines) {
+		byte[] bytes = reversed.toByteArray();
+		reversed.reset();
+		for (int i = 0, j = bytes.length - 1; i < j; i++, j--) {
+			byte swap = bytes[i];
+			bytes[i] = bytes[j];
+			bytes[j] = swap;
+		}
+		String line = new String(bytes, StandardCharsets.UTF_8).trim();
+		if (!line.isEmpty()) {
+			lines.add(line);
+		}
+	}
+
+	private static boolean waitsForLoad(WebDriver driver) {
+		if (!(driver instanceof HasCapabilities)) {
+			return true;
+		}
+		Object strategy = ((HasCapabilities) driver).getCapabilities().getCapability("pageLoadStrategy");
+		return strategy == null || "normal".equals(String.valueOf(strategy));
+	}
+
+	private static Path trendFile(Path directory, String page) {
+		return directory.resolve(page.replaceAll("[^A-Za-z0-9_-]", "_") + ".jsonl");
+	}
+
+	private static String pathOf(String url) {
+		String path = url.replaceFirst("^[a-z]+://[^/]*", "").replaceFirst("[?#].*$", "");
+		return path.isEmpty() || path.equals("/") ? "home" : path;
+	}
+
+}
@@ -0,0 +1,198 @@
+package com.qa.factory;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import com.qa.util.ConfigManager;
+
+/**
+ * Authenticated browser state per user, shared by every scenario in the JVM.
+ * After a real login the cookies and local/session storage are captured
+ * together with the page the login landed on; later scenarios for the same
+ * user get that state injected into their browser instead of filling in the
+ * login form. A snapshot is only used while it is younger than
+ * session.cache.ttlMinutes and none of its cookies have expired, and it is
+ * dropped when the landing page no longer opens with it, in which case the
+ * caller logs in through the UI again.
+ */
+public class SessionCache {
+
+	private static final String CAPTURE_STORAGE_SCRIPT = "function copy(storage) { var values = {};"
+			+ "  for (var i = 0; i < storage.length; i++) { var key = storage.key(i); values[key] = storage.getItem(key); }"
+			+ "  return values; }"
+			+ "return { local: copy(window.localStorage), session: copy(window.sessionStorage) };";
+
+	private static final String RESTORE_STORAGE_SCRIPT = "var local = arguments[0], session = arguments[1];"
+			+ "window.localStorage.clear(); window.sessionStorage.clear();"
+			+ "for (var key in local) { window.localStorage.setItem(key, local[key]); }"
+			+ "for (var key in session) { window.sessionStorage.setItem(key, session[key]); }";
+
+	private static volatile SessionCache shared;
+
+	private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<String, Snapshot>();
+	private final long ttlMillis;
+	private final boolean enabled;
+	private final AtomicLong restored = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+	private final AtomicLong captured = new AtomicLong();
+
+	/**
+	 * @param enabled    false to always log in through the UI
+	 * @param ttlMinutes how long a captured session is reused
+	 */
+	public SessionCache(boolean enabled, long ttlMinutes) {
+		this.enabled = enabled;
+		this.ttlMillis = TimeUnit.MINUTES.toMillis(ttlMinutes);
+	}
+
+	/**
+	 * @return the cache shared by every scenario in this JVM, configured from
+	 *         session.cache.enabled and session.cache.ttlMinutes
+	 */
+	public static SessionCache shared() {
+		if (shared == null) {
+			synchronized (SessionCache.class) {
+				if (shared == null) {
+					ConfigManager config = ConfigManager.get();
+					shared = new SessionCache(config.getBoolean("session.cache.enabled", false),
+							config.getLong("session.cache.ttlMinutes", 30));
+				}
+			}
+		}
+		return shared;
+	}
+
+	/**
+	 * Inject the cached session for the key into the browser and open the page
+	 * the original login landed on. The browser must already be on the
+	 * application's origin so the cookies can be set.
+	 *
+	 * @param driver the scenario's driver
+	 * @param key    identifies the user, e.g. user name and environment
+	 * @return true if the browser is now logged in; false if there is no usable
+	 *         snapshot and the caller has to log in through the UI
+	 */
+	public boolean restore(WebDriver driver, String key) {
+		if (!enabled) {
+			return false;
+		}
+		Snapshot snapshot = snapshots.get(key);
+		if (snapshot == null) {
+			return false;
+		}
+		if (snapshot.isExpired(ttlMillis)) {
+			snapshots.remove(key, snapshot);
+			rejected.incrementAndGet();
+			return false;
+		}
+		String returnUrl = driver.getCurrentUrl();
+		driver.manage().deleteAllCookies();
+		for (Cookie cookie : snapshot.cookies) {
+			driver.manage().addCookie(cookie);
+		}
+		((JavascriptExecutor) driver).executeScript(RESTORE_STORAGE_SCRIPT, snapshot.localStorage,
+				snapshot.sessionStorage);
+		driver.get(snapshot.landingUrl);
+
+		if (isSamePage(driver.getCurrentUrl(), snapshot.landingUrl) && snapshot.landingTitle.equals(driver.getTitle())) {
+			restored.incrementAndGet();
+			return true;
+		}
+		// The server no longer accepts the session: forget it and go back to login
+		System.out.println("Cached session for " + key + " is no longer valid, logging in again");
+		snapshots.remove(key, snapshot);
+		rejected.incrementAndGet();
+		driver.manage().deleteAllCookies();
+		((JavascriptExecutor) driver).executeScript("window.localStorage.clear(); window.sessionStorage.clear();");
+		driver.get(returnUrl);
+		return false;
+	}
+
+	/**
+	 * Capture the state of a browser that has just logged in, on the page the
+	 * login landed on.
+	 *
+	 * @param driver the scenario's driver
+	 * @param key    identifies the user, e.g. user name and environment
+	 */
+	@SuppressWarnings("unchecked")
+	public void capture(WebDriver driver, String key) {
+		if (!enabled) {
+			return;
+		}
+		Map<String, Object> storage = (Map<String, Object>) ((JavascriptExecutor) driver)
+				.executeScript(CAPTURE_STORAGE_SCRIPT);
+		snapshots.put(key,
+				new Snapshot(new LinkedHashSet<Cookie>(driver.manage().getCookies()),
+						(Map<String, Object>) storage.get("local"), (Map<String, Object>) storage.get("session"),
+						driver.getCurrentUrl(), driver.getTitle()));
+		captured.incrementAndGet();
+	}
+
+	/**
+	 * Forget the session of a user, e.g. after a step changed the password.
+	 */
+	public void invalidate(String key) {
+		snapshots.remove(key);
+	}
+
+	public String getStats() {
+		return String.format("Session cache: %d captured, %d restored, %d rejected", captured.get(), restored.get(),
+				rejected.get());
+	}
+
+	private static boolean isSamePage(String actual, String expected) {
+		return stripSlash(actual).equals(stripSlash(expected));
+	}
+
+	private static String stripSlash(String url) {
+		return url != null && url.endsWith("/") ? url.substring(0, url.length() - 1) : String.valueOf(url);
+	}
+
+	private static final class Snapshot {
+
+		private final Set<Cookie> cookies;
+		private final Map<String, Object> localStorage;
+		private final Map<String, Object> sessionStorage;
+		private final String landingUrl;
+		private final String landingTitle;
+		private final long capturedAt = System.currentTimeMillis();
+
+		Snapshot(Set<Cookie> cookies, Map<String, Object> localStorage, Map<String, Object> sessionStorage,
+				String landingUrl, String landingTitle) {
+			this.cookies = Collections.unmodifiableSet(cookies);
+			this.localStorage = localStorage;
+			this.sessionStorage = sessionStorage;
+			this.landingUrl = landingUrl;
+			this.landingTitle = String.valueOf(landingTitle);
+		}
+
+		/**
+		 * Too old, or a cookie that was captured has expired since.
+		 */
+		boolean isExpired(long ttlMillis) {
+			long now = System.currentTimeMillis();
+			if (now - capturedAt > ttlMillis) {
+				return true;
+			}
+			for (Cookie cookie : cookies) {
+				Date expiry = cookie.getExpiry();
+				if (expiry != null && expiry.getTime() <= now) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+}
@@ -1,19 +1,30 @@
 package com.qa.pages;
 
 import org.openqa.selenium.By;
+import org.openqa.selenium.ElementNotInteractableException;
 import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.TimeoutException;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.interactions.Actions;
 import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.Select;
-import org.openqa.selenium.support.ui.WebDriverWait;
 
-import com.qa.util.ConfigReader;
+import com.qa.factory.PagePerformance;
+import com.qa.util.ConfigManager;
 
-import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Properties;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * BasePage class that contains common methods for interacting with web
@@ -21,48 +32,86 @@ import java.util.Properties;
  */
 public class BasePage {
 
+	/**
+	 * Reads a whole table in the browser: header texts from the thead (or a first
+	 * row made only of th cells) and the text of every data row, optionally
+	 * projected onto the requested headers.
+	 */
+	static final String READ_TABLE_SCRIPT = "var table = arguments[0], wanted = arguments[1];"
+			+ "function text(cell) { return (cell.innerText || cell.textContent || '').trim(); }"
+			+ "var rows = table.rows, headerRow = null, first = 0;"
+			+ "if (table.tHead && table.tHead.rows.length) { headerRow = table.tHead.rows[table.tHead.rows.length - 1]; }"
+			+ "else if (rows.length && !rows[0].getElementsByTagName('td').length) { headerRow = rows[0]; first = 1; }"
+			+ "var headers = [];"
+			+ "if (headerRow) { for (var h = 0; h < headerRow.cells.length; h++) { headers.push(text(headerRow.cells[h])); } }"
+			+ "var columns = null;"
+			+ "if (wanted && wanted.length) { columns = [];"
+			+ "  for (var w = 0; w < wanted.length; w++) { var at = headers.indexOf(wanted[w]);"
+			+ "    if (at < 0) { throw new Error('No column with header ' + wanted[w]); } columns.push(at); }"
+			+ "  headers = wanted.slice(); }"
+			+ "var data = [];"
+			+ "for (var r = first; r < rows.length; r++) {"
+			+ "  if (rows[r].parentNode === table.tHead) { continue; }"
+			+ "  var cells = rows[r].cells, values = [];"
+			+ "  if (columns) { for (var c = 0; c < columns.length; c++) { values.push(cells[columns[c]] ? text(cells[columns[c]]) : null); } }"
+			+ "  else { for (var k = 0; k < cells.length; k++) { values.push(text(cells[k])); } }"
+			+ "  data.push(values); }"
+			+ "return { headers: headers, rows: data };";
+
+	/**
+	 * Sets the value of every field in one pass, firing input and change events
+	 * the way typing would. Receives [strategy, value, text] per field and
+	 * returns { index, reason } for every field that could not be set.
+	 */
+	static final String FILL_FORM_SCRIPT = LocatorScript.FUNCTIONS
+			+ "var fields = arguments[0], problems = [];"
+			+ "function fire(element, type) { element.dispatchEvent(new Event(type, { bubbles: true })); }"
+			+ "for (var f = 0; f < fields.length; f++) {"
+			+ "  var found = qaFind(fields[f][0], fields[f][1]), target = null, text = fields[f][2];"
+			+ "  for (var i = 0; i < found.length && !target; i++) { if (qaVisible(found[i])) { target = found[i]; } }"
+			+ "  if (!target) { problems.push({ index: f, reason: 'notFound' }); continue; }"
+			+ "  if (target.disabled || target.readOnly) { problems.push({ index: f, reason: 'not editable' }); continue; }"
+			+ "  var tag = target.tagName.toLowerCase(), type = (target.type || '').toLowerCase();"
+			+ "  if (tag === 'input' && (type === 'checkbox' || type === 'radio')) {"
+			+ "    if (target.checked !== (text === 'true')) { target.click(); }"
+			+ "    continue; }"
+			+ "  var proto = tag === 'textarea' ? HTMLTextAreaElement.prototype"
+			+ "    : tag === 'select' ? HTMLSelectElement.prototype : tag === 'input' ? HTMLInputElement.prototype : null;"
+			+ "  if (!proto) { problems.push({ index: f, reason: 'not a form field: ' + tag }); continue; }"
+			+ "  target.focus();"
+			// the prototype's setter, so frameworks that track the value property see the change
+			+ "  Object.getOwnPropertyDescriptor(proto, 'value').set.call(target, text);"
+			+ "  if (tag === 'select' && target.value !== text) { problems.push({ index: f, reason: 'no option with value ' + text }); continue; }"
+			+ "  fire(target, 'input'); fire(target, 'change'); target.blur(); }"
+			+ "return problems;";
+
 	protected WebDriver driver; // WebDriver instance
-	private WebDriverWait wait; // WebDriverWait instance
-	private String configPath = System.getProperty("user.dir") + "\\src\\test\\resources\\config\\config.properties";
-	Properties prop;
+	private WaitEngine wait; // Positive/negative wait budgets with adaptive polling
+	private final ElementCache elementCache = new ElementCache(); // Resolved element handles
+	private final DropdownSelector dropdowns; // In-page option lookup for select elements
+	private final boolean elementCacheEnabled;
 
-	// Constructor to initialize WebDriver and WebDriverWait
+	// Constructor to initialize WebDriver and WaitEngine
 	public BasePage(WebDriver driver) {
 		this.driver = driver;
-		this.wait = new WebDriverWait(driver, Duration.ofSeconds(20)); // Default wait time
+		this.wait = new WaitEngine(driver); // Wait budgets from config (wait.*)
+		this.dropdowns = new DropdownSelector(driver);
+		this.elementCacheEnabled = ConfigManager.get().getBoolean("element.cache.enabled", true);
 	}
 
 	// ================== Launch Url Method ==================
 
 	/**
 	 * 
-	 * Method will return application url based on Config file
+	 * Method will return application url based on Config file. The value comes
+	 * from the shared {@link ConfigManager} snapshot, so no file is read here.
 	 * 
 	 * @return url as per Config set up
 	 * 
 	 */
 
 	public String getUrl() {
-		ConfigReader con = new ConfigReader();
-		prop = con.init_prop(configPath);
-
-		String environment = prop.getProperty("setUpEnvironment");
-
-		String url = "";
-		switch (environment.toUpperCase()) {
-		case "SIT":
-			url = prop.getProperty("sit.url");
-			break;
-		case "UAT":
-			url = prop.getProperty("uat.url");
-			break;
-		default:
-			System.out.println("Invalid environment set up in config file");
-			break;
-		}
-
-		return url;
-
+		return ConfigManager.get().getEnvironmentUrl("setUpEnvironment");
 	}
 
 	/**
@@ -74,6 +123,8 @@ public class BasePage {
 	public void launchUrl() {
 		String url = getUrl();
 		driver.get(url);
+		elementCache.invalidate(); // New document, cached handles are gone
+		PagePerformance.capture(driver, getClass().getSimpleName()); // Load timings of the application
 	}
 
 	// ================== Page Title Methods ==================
@@ -88,7 +139,9 @@ public class BasePage {
 	}
 
 	/**
-	 * Fetches the title of the current page, ensuring the page has loaded.
+	 * Fetches the title of the current page, ensuring the page has loaded. The
+	 * document is given the full positive wait budget to be parsed; the element
+	 * may then legitimately be absent, so it only gets the negative budget.
 	 *
 	 * @param locator The By locator to wait for before fetching the title.
 	 * @return The title of the current page or a fallback message if the title is
@@ -96,13 +149,39 @@ public class BasePage {
 	 */
 	public String fetchTitle(By locator) {
 		try {
-			wait.until(ExpectedConditions.visibilityOfElementLocated(locator)); // Wait for the element to be visible
-		} catch (Exception e) {
+			wait.until(d -> !"loading".equals(((JavascriptExecutor) d).executeScript("return document.readyState")));
+		} catch (TimeoutException e) {
+			System.out.println("Page did not finish loading, proceeding to get title anyway.");
+		}
+		if (!isDisplayed(locator)) { // Negative budget once the document is there
 			System.out.println("Element not found, proceeding to get title anyway.");
 		}
 		return driver.getTitle(); // Return the title of the current page
 	}
 
+	/**
+	 * Method to wait until the browser has left the given url, e.g. after
+	 * submitting a form that redirects.
+	 * 
+	 * @param fromUrl The url of the page the navigation started from.
+	 */
+	protected void waitForNavigation(final String fromUrl) {
+		wait.until(d -> !fromUrl.equals(d.getCurrentUrl()));
+		elementCache.invalidate(); // New document, cached handles are gone
+	}
+
+	/**
+	 * Method to wait until the browser has replaced the document an element
+	 * belongs to, e.g. after submitting a form that may post back to its own
+	 * url.
+	 * 
+	 * @param fromPage An element of the page the navigation started from.
+	 */
+	protected void waitForNewDocument(WebElement fromPage) {
+		wait.until(ExpectedConditions.stalenessOf(fromPage));
+		elementCache.invalidate(); // New document, cached handles are gone
+	}
+
 	// ================== Click Methods ==================
 
 	/**
@@ -111,8 +190,10 @@ public class BasePage {
 	 * @param locator The By locator for the element to click.
 	 */
 	protected void click(By locator) {
-		WebElement element = waitUntilVisible(locator); // Wait until the element is visible
-		element.click(); // Click the element
+		withElement(locator, element -> {
+			element.click(); // Click the element
+			return null;
+		});
 	}
 
 	/**
@@ -122,7 +203,7 @@ public class BasePage {
 	 */
 	protected void clickIfDisplayed(By locator) {
 		if (isDisplayed(locator)) { // Check if the element is displayed
-			driver.findElement(locator).click(); // Click the element
+			click(locator); // Click the element, resolving it again unless it is cached
 		} else {
 			System.out.println("Element not displayed: " + locator); // Log if not displayed
 		}
@@ -134,7 +215,7 @@ public class BasePage {
 	 * @param locator The By locator for the element to click.
 	 */
 	protected void clickUsingJavaScript(By locator) {
-		WebElement element = wait.until(ExpectedConditions.visibilityOfElementLocated(locator)); // Wait until visible
+		WebElement element = waitUntilVisible(locator); // Wait until visible
 		((JavascriptExecutor) driver).executeScript("arguments[0].scrollIntoView(true);", element);
 		((JavascriptExecutor) driver).executeScript("arguments[0].click();", element);
 	}
@@ -148,9 +229,100 @@ public class BasePage {
 	 * @param text    The text to enter.
 	 */
 	protected void enterText(By locator, String text) {
-		WebElement element = waitUntilVisible(locator); // Wait until the element is visible
-		element.clear(); // Clear any existing text
-		element.sendKeys(text); // Enter the new text
+		withElement(locator, element -> {
+			element.clear(); // Clear any existing text
+			element.sendKeys(text); // Enter the new text
+			return null;
+		});
+	}
+
+	/**
+	 * Method to fill in several form fields with one script execution instead of
+	 * a wait, clear and sendKeys per field. Fields are set in the order of the
+	 * map, with input and change events fired for each. Checkboxes and radio
+	 * buttons take "true" or "false", selects take the option value.
+	 * 
+	 * @param fields The By locators of the fields and the values to set, e.g. a
+	 *               LinkedHashMap.
+	 */
+	public void fillForm(Map<By, String> fields) {
+		fillForm(fields, Collections.<By>emptySet());
+	}
+
+	/**
+	 * Method to fill in several form fields, typing into the ones that need real
+	 * key events (masks, autocomplete, per-key validation) with
+	 * {@link #enterText(By, String)}. Fields between two typed fields are still
+	 * set together, so the order of the map is kept.
+	 * 
+	 * @param fields          The By locators of the fields and the values to set.
+	 * @param keystrokeFields The fields to type into instead.
+	 */
+	public void fillForm(Map<By, String> fields, Set<By> keystrokeFields) {
+		List<By> batch = new ArrayList<By>();
+		for (Map.Entry<By, String> field : fields.entrySet()) {
+			if (keystrokeFields.contains(field.getKey()) || !LocatorScript.supports(field.getKey())) {
+				setFieldValues(batch, fields);
+				batch.clear();
+				enterText(field.getKey(), field.getValue());
+			} else {
+				batch.add(field.getKey());
+			}
+		}
+		setFieldValues(batch, fields);
+	}
+
+	/**
+	 * Method to set a batch of fields in one script. Fields that are not on the
+	 * page yet are waited for and set in a second script.
+	 * 
+	 * @param locators The fields to set, in order.
+	 * @param fields   The values by field.
+	 */
+	private void setFieldValues(List<By> locators, Map<By, String> fields) {
+		if (locators.isEmpty()) {
+			return;
+		}
+		List<By> notFound = new ArrayList<By>();
+		for (Map.Entry<By, String> problem : runFillScript(locators, fields).entrySet()) {
+			if (!"notFound".equals(problem.getValue())) {
+				throw new IllegalArgumentException("Unable to fill " + problem.getKey() + ": " + problem.getValue());
+			}
+			notFound.add(problem.getKey());
+		}
+		if (notFound.isEmpty()) {
+			return;
+		}
+		for (By locator : notFound) {
+			waitUntilVisible(locator); // Rendered late, e.g. after an earlier field's change event
+		}
+		Map<By, String> problems = runFillScript(notFound, fields);
+		if (!problems.isEmpty()) {
+			throw new IllegalArgumentException("Unable to fill form fields: " + problems);
+		}
+	}
+
+	/**
+	 * @return the reason by locator for every field the script could not set
+	 */
+	@SuppressWarnings("unchecked")
+	private Map<By, String> runFillScript(List<By> locators, Map<By, String> fields) {
+		List<List<String>> arguments = new ArrayList<List<String>>();
+		for (By locator : locators) {
+			List<String> field = new ArrayList<String>(LocatorScript.toArguments(locator));
+			String value = fields.get(locator);
+			field.add(value == null ? "" : value);
+			arguments.add(field);
+		}
+		Map<By, String> problems = new LinkedHashMap<By, String>();
+		Object result = ((JavascriptExecutor) driver).executeScript(FILL_FORM_SCRIPT, arguments);
+		if (result != null) {
+			for (Object problem : (List<Object>) result) {
+				Map<String, Object> entry = (Map<String, Object>) problem;
+				problems.put(locators.get(((Number) entry.get("index")).intValue()), String.valueOf(entry.get("reason")));
+			}
+		}
+		return problems;
 	}
 
 	/**
@@ -160,22 +332,32 @@ public class BasePage {
 	 * @return The text of the element.
 	 */
 	protected String getText(By locator) {
-		WebElement element = waitUntilVisible(locator); // Wait until the element is visible
-		return element.getText(); // Return the text of the element
+		return withElement(locator, WebElement::getText, true); // Return the text of the element
 	}
 
 	// ================== Visibility & Existence Methods ==================
 
 	/**
-	 * Method to check if a web element is displayed.
+	 * Method to check if a web element is displayed. An absent element is only
+	 * waited for up to the negative budget (wait.negative.timeoutMs), not the
+	 * full wait timeout.
 	 * 
 	 * @param locator The By locator for the element.
 	 * @return true if the element is displayed, false otherwise.
 	 */
 	protected boolean isDisplayed(By locator) {
+		WebElement cached = elementCacheEnabled ? elementCache.get(locator) : null;
+		if (cached != null) {
+			try {
+				if (cached.isDisplayed()) {
+					return true; // Cached handle is still attached and visible
+				}
+			} catch (StaleElementReferenceException e) {
+				elementCache.markStale(locator);
+			}
+		}
 		try {
-			WebElement element = wait.until(ExpectedConditions.elementToBeClickable(locator)); // Wait until visible
-			return element.isDisplayed(); // Return true if the element is displayed
+			return wait.isVisible(locator); // Return true if the element is displayed
 		} catch (Exception e) {
 			return false; // Return false if any issue occurs (e.g., element not found)
 		}
@@ -188,7 +370,63 @@ public class BasePage {
 	 * @return The WebElement once it is visible.
 	 */
 	private WebElement waitUntilVisible(By locator) {
-		return wait.until(ExpectedConditions.visibilityOfElementLocated(locator)); // Wait for visibility
+		return wait.untilVisible(locator); // Wait for visibility
+	}
+
+	/**
+	 * Method to run an action against an element, reusing its cached handle when
+	 * one exists. A handle that is stale, or whose element is hidden or covered
+	 * (e.g. by an overlay or spinner), is dropped and the element is waited for
+	 * and resolved again once, transparently to the caller.
+	 * 
+	 * @param locator The By locator for the element.
+	 * @param action  The interaction to perform.
+	 * @return The result of the action.
+	 */
+	private <T> T withElement(By locator, Function<WebElement, T> action) {
+		return withElement(locator, action, false);
+	}
+
+	/**
+	 * Method to run an action against an element as
+	 * {@link #withElement(By, Function)} does. Read actions such as getText do
+	 * not fail on a hidden element, they return an empty value, so for them a
+	 * cached handle is only used while its element is displayed.
+	 * 
+	 * @param locator The By locator for the element.
+	 * @param action  The interaction to perform.
+	 * @param read    Whether the action reads the element rather than interacts.
+	 * @return The result of the action.
+	 */
+	private <T> T withElement(By locator, Function<WebElement, T> action, boolean read) {
+		if (!elementCacheEnabled) {
+			return action.apply(waitUntilVisible(locator));
+		}
+		WebElement cached = elementCache.get(locator);
+		if (cached != null) {
+			try {
+				if (!read || cached.isDisplayed()) {
+					return action.apply(cached);
+				}
+				elementCache.markStale(locator); // Hidden, reading it would return an empty value
+			} catch (StaleElementReferenceException e) {
+				elementCache.markStale(locator); // DOM changed since it was resolved
+			} catch (ElementNotInteractableException e) {
+				elementCache.markStale(locator); // Hidden or covered, wait for it as an uncached lookup would
+			}
+		}
+		WebElement element = waitUntilVisible(locator); // Wait until the element is visible
+		elementCache.put(locator, element);
+		return action.apply(element);
+	}
+
+	/**
+	 * Method to get the element cache statistics of this page.
+	 * 
+	 * @return The hit, miss and refresh counters of the page's element cache.
+	 */
+	public ElementCache getElementCache() {
+		return elementCache;
 	}
 
 	// ================== Radio Button Methods ==================
@@ -216,15 +454,15 @@ public class BasePage {
 	// ================== Dropdown Methods ==================
 
 	/**
-	 * Selects an option from a dropdown by visible text.
+	 * Selects an option from a dropdown by visible text. The option is looked up
+	 * and selected inside the page in one script call, so the cost does not grow
+	 * with the number of options.
 	 * 
 	 * @param locator     The By locator for the dropdown.
 	 * @param visibleText The visible text of the option to select.
 	 */
 	public void selectDropdownByVisibleText(By locator, String visibleText) {
-		WebElement dropdown = waitUntilVisible(locator); // Wait until the dropdown is visible
-		Select select = new Select(dropdown); // Create a Select object
-		select.selectByVisibleText(visibleText); // Select the option by visible text
+		selectOptions(locator, DropdownSelector.BY_TEXT, Collections.singletonList(visibleText), false);
 	}
 
 	/**
@@ -234,9 +472,7 @@ public class BasePage {
 	 * @param value   The value of the option to select.
 	 */
 	public void selectDropdownByValue(By locator, String value) {
-		WebElement dropdown = waitUntilVisible(locator); // Wait until the dropdown is visible
-		Select select = new Select(dropdown); // Create a Select object
-		select.selectByValue(value); // Select the option by value
+		selectOptions(locator, DropdownSelector.BY_VALUE, Collections.singletonList(value), false);
 	}
 
 	/**
@@ -246,9 +482,40 @@ public class BasePage {
 	 * @param index   The index of the option to select (0-based).
 	 */
 	public void selectDropdownByIndex(By locator, int index) {
-		WebElement dropdown = waitUntilVisible(locator); // Wait until the dropdown is visible
-		Select select = new Select(dropdown); // Create a Select object
-		select.selectByIndex(index); // Select the option by index
+		selectOptions(locator, DropdownSelector.BY_INDEX, Collections.singletonList(index), false);
+	}
+
+	/**
+	 * Selects exactly the given options of a multi-select dropdown by visible
+	 * text, deselecting all others, in one script call.
+	 * 
+	 * @param locator      The By locator for the dropdown.
+	 * @param visibleTexts The visible texts of the options to select.
+	 */
+	public void selectDropdownByVisibleTexts(By locator, List<String> visibleTexts) {
+		selectOptions(locator, DropdownSelector.BY_TEXT, visibleTexts, true);
+	}
+
+	/**
+	 * Selects exactly the given options of a multi-select dropdown by value,
+	 * deselecting all others, in one script call.
+	 * 
+	 * @param locator The By locator for the dropdown.
+	 * @param values  The values of the options to select.
+	 */
+	public void selectDropdownByValues(By locator, List<String> values) {
+		selectOptions(locator, DropdownSelector.BY_VALUE, values, true);
+	}
+
+	/**
+	 * Method to select options of a dropdown through the page's
+	 * {@link DropdownSelector}, reusing the cached dropdown handle.
+	 */
+	private void selectOptions(By locator, final String by, final List<?> keys, final boolean exclusive) {
+		withElement(locator, dropdown -> {
+			dropdowns.select(dropdown, by, keys, exclusive);
+			return null;
+		});
 	}
 
 	// ================== Mouse Action Methods ==================
@@ -310,12 +577,13 @@ public class BasePage {
 	 */
 	public int getColumnCount(By tableLocator) {
 		WebElement table = waitUntilVisible(tableLocator); // Wait until the table is visible
-		List<WebElement> columns = table.findElements(By.xpath("//tr[1]/td")); // Find all columns in the first row
+		List<WebElement> columns = table.findElements(By.xpath("(.//tr)[1]/td")); // Columns in this table's first row
 		return columns.size(); // Return the number of columns
 	}
 
 	/**
-	 * Get the text of a specific cell in a static table.
+	 * Get the text of a specific cell in a static table. The cell is located and
+	 * read inside the browser in a single script call.
 	 * 
 	 * @param tableLocator The By locator for the table.
 	 * @param rowIndex     The index of the row (0-based).
@@ -324,10 +592,62 @@ public class BasePage {
 	 */
 	public String getCellText(By tableLocator, int rowIndex, int columnIndex) {
 		WebElement table = waitUntilVisible(tableLocator); // Wait until the table is visible
-		List<WebElement> rows = table.findElements(By.tagName("tr")); // Find all rows
-		List<WebElement> columns = rows.get(rowIndex).findElements(By.tagName("td")); // Find all columns in the
-																						// specified row
-		return columns.get(columnIndex).getText(); // Return the text of the specified cell
+		Object text = ((JavascriptExecutor) driver).executeScript(
+				"var row = arguments[0].getElementsByTagName('tr')[arguments[1]];"
+						+ "var cell = row ? row.getElementsByTagName('td')[arguments[2]] : null;"
+						+ "return cell ? (cell.innerText || cell.textContent || '').trim() : null;",
+				table, rowIndex, columnIndex);
+		if (text == null) {
+			throw new IndexOutOfBoundsException("No cell at row " + rowIndex + ", column " + columnIndex);
+		}
+		return text.toString(); // Return the text of the specified cell
+	}
+
+	/**
+	 * Read a whole table in one script execution instead of one driver command
+	 * per row and cell.
+	 * 
+	 * @param tableLocator The By locator for the table.
+	 * @param headers      Optional header texts to project the table onto; all
+	 *                     columns are read when none are given.
+	 * @return The headers and the text of every data row.
+	 */
+	public TableData readTable(By tableLocator, String... headers) {
+		WebElement table = waitUntilVisible(tableLocator); // Wait until the table is visible
+		return readTable(table, headers);
+	}
+
+	/**
+	 * Read an already located table in one script execution.
+	 * 
+	 * @param table   The table element.
+	 * @param headers Optional header texts to project the table onto.
+	 * @return The headers and the text of every data row.
+	 */
+	protected TableData readTable(WebElement table, String... headers) {
+		return toTableData(
+				((JavascriptExecutor) driver).executeScript(READ_TABLE_SCRIPT, table, Arrays.asList(headers)));
+	}
+
+	/**
+	 * Convert the value returned by {@link #READ_TABLE_SCRIPT} into a TableData.
+	 */
+	@SuppressWarnings("unchecked")
+	static TableData toTableData(Object scriptResult) {
+		Map<String, Object> result = (Map<String, Object>) scriptResult;
+		List<String> headerTexts = new ArrayList<String>();
+		for (Object header : (List<Object>) result.get("headers")) {
+			headerTexts.add(String.valueOf(header));
+		}
+		List<List<String>> rows = new ArrayList<List<String>>();
+		for (Object row : (List<Object>) result.get("rows")) {
+			List<String> cells = new ArrayList<String>();
+			for (Object cell : (List<Object>) row) {
+				cells.add(cell == null ? null : cell.toString());
+			}
+			rows.add(cells);
+		}
+		return new TableData(headerTexts, rows);
 	}
 
 	/**
@@ -337,6 +657,42 @@ public class BasePage {
 	 */
 	public void goToNextPage(By nextPageLocator) {
 		click(nextPageLocator); // Click the 'Next' button to go to the next page
+		elementCache.invalidate(); // Table rows are replaced on the next page
+	}
+
+	/**
+	 * Stream the rows of a paginated table across all of its pages. Each page is
+	 * read in one script execution, the last page is detected without waiting
+	 * for a timeout, and pages after the one being consumed are only visited
+	 * when the stream asks for more rows, so findFirst() or limit() stop paging
+	 * early.
+	 * <p>
+	 * The stream must be closed. With prefetch the next page is opened on a
+	 * background thread while the caller processes the current one; the page
+	 * object and driver must not be used until the stream is closed. Closing
+	 * waits for that page and clicks 'Previous' to leave the table on the last
+	 * page rows were taken from.
+	 * 
+	 * @param tableLocator        The By locator for the table.
+	 * @param nextPageLocator     The By locator for the 'Next' button.
+	 * @param lastPageLocator     The By locator for the last page indicator, or
+	 *                            null to rely on the 'Next' button being absent
+	 *                            or disabled.
+	 * @param previousPageLocator The By locator for the 'Previous' button to
+	 *                            open the next page in the background, or null
+	 *                            to open pages only when their rows are needed.
+	 * @param headers             Optional headers to project each page onto.
+	 * @return The rows of every page, in order, as cell texts.
+	 */
+	public Stream<List<String>> streamPaginatedRows(By tableLocator, By nextPageLocator, By lastPageLocator,
+			By previousPageLocator, String... headers) {
+		waitUntilVisible(tableLocator); // Wait until the first page is rendered
+		elementCache.invalidate(); // The iterator pages the table behind this page object's back
+		final PaginatedTableIterator rows = new PaginatedTableIterator(driver, wait, tableLocator, nextPageLocator,
+				lastPageLocator, previousPageLocator, headers);
+		return StreamSupport
+				.stream(Spliterators.spliteratorUnknownSize(rows, Spliterator.ORDERED | Spliterator.NONNULL), false)
+				.onClose(rows::close);
 	}
 
 	/**
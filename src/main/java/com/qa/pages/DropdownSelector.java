@@ -0,0 +1,110 @@
+package com.qa.pages;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.openqa.selenium.ElementNotInteractableException;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+/**
+ * Selects options of a select element inside the page in one script call,
+ * instead of the option-by-option wire calls of Selenium's Select. The first
+ * selection builds text-to-index and value-to-index maps on the select
+ * element itself; a MutationObserver on the select marks them dirty when its
+ * options change, so they are rebuilt only when needed. Used by the
+ * selectDropdown methods of {@link BasePage}.
+ */
+class DropdownSelector {
+
+	static final String BY_TEXT = "text";
+	static final String BY_VALUE = "value";
+	static final String BY_INDEX = "index";
+
+	/**
+	 * Receives the select, the key kind, the wanted keys and whether other
+	 * options are deselected first. Returns { missing, disabled }, { hidden }
+	 * when the select is not visible or { locked } when it is disabled.
+	 */
+	static final String SELECT_SCRIPT = LocatorScript.FUNCTIONS
+			+ "var select = arguments[0], by = arguments[1], wanted = arguments[2], exclusive = arguments[3];"
+			+ "if (!select || select.tagName.toLowerCase() !== 'select') { throw new Error('Element is not a select'); }"
+			// a script could select a hidden option list, a user could not
+			+ "if (!qaVisible(select)) { return { hidden: true }; }"
+			// also disabled through an enclosing disabled fieldset
+			+ "if (select.disabled || (select.matches && select.matches(':disabled'))) { return { locked: true }; }"
+			+ "function normalize(text) { return String(text).replace(/[\\s\\u00a0]+/g, ' ').trim(); }"
+			+ "var options = select.options, cache = select.__qaOptions;"
+			+ "if (!cache || cache.dirty) {"
+			+ "  cache = { dirty: false, text: Object.create(null), value: Object.create(null) };"
+			+ "  for (var i = 0; i < options.length; i++) {"
+			+ "    var text = normalize(options[i].text), value = options[i].value;"
+			+ "    (cache.text[text] = cache.text[text] || []).push(i);"
+			+ "    (cache.value[value] = cache.value[value] || []).push(i); }"
+			+ "  select.__qaOptions = cache;"
+			+ "  if (!select.__qaObserver && window.MutationObserver) {"
+			+ "    select.__qaObserver = new MutationObserver(function() { if (select.__qaOptions) { select.__qaOptions.dirty = true; } });"
+			+ "    select.__qaObserver.observe(select, { childList: true, subtree: true, characterData: true,"
+			+ "      attributes: true, attributeFilter: ['value', 'label'] }); } }"
+			+ "var indexes = [], missing = [], disabled = [];"
+			+ "for (var w = 0; w < wanted.length; w++) {"
+			+ "  var found = by === 'index' ? (wanted[w] >= 0 && wanted[w] < options.length ? [Number(wanted[w])] : null)"
+			+ "    : cache[by][by === 'text' ? normalize(wanted[w]) : String(wanted[w])];"
+			+ "  if (!found) { missing.push(wanted[w]); continue; }"
+			// a single select takes the first match, a multiple select every match, as Select does
+			+ "  for (var f = 0; f < (select.multiple ? found.length : 1); f++) {"
+			+ "    if (options[found[f]].disabled) { disabled.push(wanted[w]); } else { indexes.push(found[f]); } } }"
+			+ "if (missing.length || disabled.length) { return { missing: missing, disabled: disabled }; }"
+			+ "var changed = false;"
+			+ "if (select.multiple && exclusive) {"
+			+ "  for (var d = 0; d < options.length; d++) {"
+			+ "    if (options[d].selected && indexes.indexOf(d) < 0) { options[d].selected = false; changed = true; } } }"
+			+ "for (var s = 0; s < indexes.length; s++) {"
+			+ "  if (!options[indexes[s]].selected) { options[indexes[s]].selected = true; changed = true; } }"
+			+ "if (changed) { select.dispatchEvent(new Event('input', { bubbles: true }));"
+			+ "  select.dispatchEvent(new Event('change', { bubbles: true })); }"
+			+ "return { missing: [], disabled: [] };";
+
+	private final WebDriver driver;
+
+	DropdownSelector(WebDriver driver) {
+		this.driver = driver;
+	}
+
+	/**
+	 * Select options of a dropdown in one script call. A change event is fired
+	 * when the selection changed.
+	 *
+	 * @param dropdown  the select element
+	 * @param by        {@link #BY_TEXT}, {@link #BY_VALUE} or {@link #BY_INDEX}
+	 * @param keys      visible texts, values or indexes of the options
+	 * @param exclusive for a multiple select, deselect every other option
+	 * @throws ElementNotInteractableException if the dropdown is not visible or
+	 *                                         is disabled
+	 * @throws NoSuchElementException          if an option does not exist
+	 * @throws UnsupportedOperationException   if an option is disabled
+	 */
+	@SuppressWarnings("unchecked")
+	void select(WebElement dropdown, String by, List<?> keys, boolean exclusive) {
+		Map<String, Object> result = (Map<String, Object>) ((JavascriptExecutor) driver).executeScript(SELECT_SCRIPT,
+				dropdown, by, new ArrayList<Object>(keys), exclusive);
+		if (Boolean.TRUE.equals(result.get("hidden"))) {
+			throw new ElementNotInteractableException("Dropdown is not visible");
+		}
+		if (Boolean.TRUE.equals(result.get("locked"))) {
+			throw new ElementNotInteractableException("You may not select an option in a disabled dropdown");
+		}
+		List<Object> missing = (List<Object>) result.get("missing");
+		if (missing != null && !missing.isEmpty()) {
+			throw new NoSuchElementException("Cannot locate option with " + by + ": " + missing);
+		}
+		List<Object> disabled = (List<Object>) result.get("disabled");
+		if (disabled != null && !disabled.isEmpty()) {
+			throw new UnsupportedOperationException("You may not select a disabled option: " + disabled);
+		}
+	}
+
+}
@@ -0,0 +1,88 @@
+package com.qa.pages;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+
+/**
+ * Per-page cache of resolved element handles keyed by locator. Handles are
+ * not re-validated on lookup: a stale handle shows up as a
+ * StaleElementReferenceException when it is used, and a hidden or covered
+ * element as an ElementNotInteractableException, which {@link BasePage}
+ * treats as a cache miss. Reads such as getText do not throw for a hidden
+ * element, so BasePage checks that the element is displayed before reading
+ * through a cached handle.
+ */
+public class ElementCache {
+
+	private final Map<By, WebElement> elements = new HashMap<By, WebElement>();
+
+	private int hits;
+	private int misses;
+	private int staleRefreshes;
+	private int invalidations;
+
+	/**
+	 * @param locator
+	 * @return the cached handle, or null if the locator has not been resolved
+	 *         since the last navigation
+	 */
+	WebElement get(By locator) {
+		WebElement element = elements.get(locator);
+		if (element != null) {
+			hits++;
+		} else {
+			misses++;
+		}
+		return element;
+	}
+
+	void put(By locator, WebElement element) {
+		elements.put(locator, element);
+	}
+
+	/**
+	 * Drop a handle that turned out to be stale or not interactable.
+	 */
+	void markStale(By locator) {
+		elements.remove(locator);
+		staleRefreshes++;
+	}
+
+	/**
+	 * Drop every handle, e.g. after navigating to a new document.
+	 */
+	void invalidate() {
+		if (!elements.isEmpty()) {
+			elements.clear();
+			invalidations++;
+		}
+	}
+
+	public int getHits() {
+		return hits;
+	}
+
+	public int getMisses() {
+		return misses;
+	}
+
+	public int getStaleRefreshes() {
+		return staleRefreshes;
+	}
+
+	public int getInvalidations() {
+		return invalidations;
+	}
+
+	/**
+	 * @return a one line summary; each hit is one find-element round trip saved
+	 */
+	public String getStats() {
+		return "Element cache: " + hits + " hits, " + misses + " misses, " + staleRefreshes + " stale refreshes, "
+				+ invalidations + " invalidations";
+	}
+
+}
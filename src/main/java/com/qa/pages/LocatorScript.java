@@ -0,0 +1,84 @@
+package com.qa.pages;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.openqa.selenium.By;
+
+/**
+ * Translates standard {@link By} locators into arguments for in-page scripts,
+ * so elements can be found inside the browser without a find-element round
+ * trip per locator.
+ */
+final class LocatorScript {
+
+	/**
+	 * Defines qaFind(strategy, value) returning an array of matching elements and
+	 * qaVisible(element). Prepend it to scripts that receive locators from
+	 * {@link #toArguments(By)}.
+	 */
+	static final String FUNCTIONS = "function qaFind(strategy, value) {"
+			+ "  var found = [], i;"
+			+ "  function quote(text) { return '\"' + String(text).replace(/\\\\/g, '\\\\\\\\').replace(/\"/g, '\\\\\"') + '\"'; }"
+			+ "  switch (strategy) {"
+			+ "  case 'id': return Array.prototype.slice.call(document.querySelectorAll('[id=' + quote(value) + ']'));"
+			+ "  case 'name': return Array.prototype.slice.call(document.querySelectorAll('[name=' + quote(value) + ']'));"
+			+ "  case 'cssSelector': return Array.prototype.slice.call(document.querySelectorAll(value));"
+			+ "  case 'className': return Array.prototype.slice.call(document.getElementsByClassName(value));"
+			+ "  case 'tagName': return Array.prototype.slice.call(document.getElementsByTagName(value));"
+			+ "  case 'xpath':"
+			+ "    var snapshot = document.evaluate(value, document, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null);"
+			+ "    for (i = 0; i < snapshot.snapshotLength; i++) { found.push(snapshot.snapshotItem(i)); }"
+			+ "    return found;"
+			+ "  case 'linkText':"
+			+ "  case 'partialLinkText':"
+			+ "    var links = document.getElementsByTagName('a');"
+			+ "    for (i = 0; i < links.length; i++) {"
+			+ "      var text = (links[i].innerText || '').trim();"
+			+ "      if (strategy === 'linkText' ? text === value : text.indexOf(value) >= 0) { found.push(links[i]); } }"
+			+ "    return found;"
+			+ "  }"
+			+ "  throw new Error('Unsupported locator strategy ' + strategy);"
+			+ "}"
+			+ "function qaVisible(element) {"
+			+ "  if (!element.getClientRects().length) { return false; }"
+			+ "  var style = window.getComputedStyle(element);"
+			+ "  return style.visibility !== 'hidden' && style.display !== 'none' && style.opacity !== '0';"
+			+ "}";
+
+	private static final List<String> STRATEGIES = Arrays.asList("id", "name", "cssSelector", "className", "tagName",
+			"xpath", "linkText", "partialLinkText");
+
+	private LocatorScript() {
+	}
+
+	/**
+	 * @param locator a locator created by one of the static By factory methods
+	 * @return true if {@link #toArguments(By)} can translate it
+	 */
+	static boolean supports(By locator) {
+		return toArguments(locator) != null;
+	}
+
+	/**
+	 * Split a locator into the strategy and value understood by qaFind, based on
+	 * its "By.strategy: value" string form.
+	 *
+	 * @param locator the locator to translate
+	 * @return [strategy, value], or null for locators such as ByChained that
+	 *         cannot be evaluated in the page
+	 */
+	static List<String> toArguments(By locator) {
+		String description = String.valueOf(locator);
+		int separator = description.indexOf(": ");
+		if (!description.startsWith("By.") || separator < 0) {
+			return null;
+		}
+		String strategy = description.substring(3, separator);
+		if (!STRATEGIES.contains(strategy)) {
+			return null;
+		}
+		return Arrays.asList(strategy, description.substring(separator + 2));
+	}
+
+}
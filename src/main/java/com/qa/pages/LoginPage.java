@@ -1,7 +1,16 @@
 package com.qa.pages;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import com.qa.factory.SessionCache;
 
 public class LoginPage extends BasePage {
 
@@ -41,6 +50,79 @@ public class LoginPage extends BasePage {
 
 	}
 
+	/**
+	 * Fill in the user name and password with one script execution and submit
+	 * the login form.
+	 */
+	public void login(String username, String password) {
+		Map<By, String> credentials = new LinkedHashMap<By, String>();
+		credentials.put(userName, username);
+		credentials.put(passWord, password);
+		fillForm(credentials);
+		clickLoginButton();
+	}
+
+	/**
+	 * Log in as the given user. When session.cache.enabled is true and this user
+	 * has logged in before in this JVM with the same password, the captured
+	 * session is injected instead of filling in the form; otherwise, or if that
+	 * session is no longer accepted, the login goes through the UI and its
+	 * session is captured once the login has succeeded. Either way the browser
+	 * ends on the page the login lands on.
+	 */
+	public void loginAs(String username, String password) {
+		loginAs(username, password, SessionCache.shared());
+	}
+
+	/**
+	 * As {@link #loginAs(String, String)}, with the given session cache.
+	 */
+	public void loginAs(String username, String password, SessionCache sessions) {
+		launchApp();
+		String key = username + ":" + sha256(password) + "@" + getUrl();
+		if (sessions.restore(driver, key)) {
+			getElementCache().invalidate(); // New document, cached handles are gone
+			System.out.println("Logged in as " + username + " from the session cache");
+			return;
+		}
+		WebElement loginForm = driver.findElement(passWord);
+		login(username, password);
+		waitForNewDocument(loginForm); // a rejected login posts back to the login url
+		if (isLoggedIn()) {
+			sessions.capture(driver, key);
+		}
+	}
+
+	/**
+	 * A login succeeded when the page it lands on shows neither the login error
+	 * nor the login form again. One round trip each, no waiting: the page has
+	 * already loaded.
+	 */
+	private boolean isLoggedIn() {
+		for (WebElement warning : driver.findElements(warningMsg)) {
+			if (warning.isDisplayed()) {
+				return false;
+			}
+		}
+		return driver.findElements(passWord).isEmpty();
+	}
+
+	/**
+	 * Sessions are cached per password too, so a wrong password is never let in
+	 * by an earlier good login.
+	 */
+	private static String sha256(String password) {
+		try {
+			StringBuilder hex = new StringBuilder();
+			for (byte b : MessageDigest.getInstance("SHA-256").digest(password.getBytes(StandardCharsets.UTF_8))) {
+				hex.append(String.format("%02x", b));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+
 	public String getWarningMessage() {
 
 		return getText(warningMsg);
@@ -0,0 +1,271 @@
+package com.qa.pages;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import com.qa.factory.CommandMetrics;
+
+/**
+ * Iterates over the rows of a paginated table, reading one page at a time in
+ * bulk and optionally opening the next page in the background. Created by
+ * {@link BasePage#streamPaginatedRows}. Closing waits for a page being opened
+ * in the background and goes back to the last page rows were taken from, so
+ * the table is left where the caller stopped reading.
+ */
+class PaginatedTableIterator implements Iterator<List<String>>, AutoCloseable {
+
+	/**
+	 * Reads the page like {@link BasePage#READ_TABLE_SCRIPT} and marks the first
+	 * data row with its text, so a page change can be told apart from the page
+	 * that was just read.
+	 */
+	private static final String READ_PAGE_SCRIPT = "var result = (function() {" + BasePage.READ_TABLE_SCRIPT
+			+ "}).apply(this, arguments);"
+			+ "var rows = arguments[0].rows;"
+			+ "for (var i = 0; i < rows.length; i++) {"
+			+ "  if (rows[i].getElementsByTagName('td').length) { rows[i].__qaPage = rows[i].textContent; break; } }"
+			+ "return result;";
+
+	/**
+	 * True once the table has been replaced or its first data row no longer
+	 * carries the mark left by {@link #READ_PAGE_SCRIPT}.
+	 */
+	private static final String PAGE_CHANGED_SCRIPT = "var table = arguments[0];"
+			+ "if (!document.documentElement.contains(table)) { return true; }"
+			+ "var rows = table.rows;"
+			+ "for (var i = 0; i < rows.length; i++) {"
+			+ "  if (rows[i].getElementsByTagName('td').length) { return rows[i].__qaPage !== rows[i].textContent; } }"
+			+ "return true;";
+
+	private final WebDriver driver;
+	private final WaitEngine wait;
+	private final By tableLocator;
+	private final By nextPageLocator;
+	private final By lastPageLocator;
+	private final By previousPageLocator;
+	private final List<String> headers;
+	private final ExecutorService prefetcher;
+
+	private WebElement table;
+	private Iterator<List<String>> currentRows;
+	private List<String> currentFirstRow;
+	private boolean lastPage;
+	private Future<Page> nextPage;
+	private volatile boolean closed;
+	/** Set once a prefetch has clicked 'Next' past the page being consumed. */
+	private volatile boolean ahead;
+
+	/**
+	 * @param previousPageLocator the 'Previous' button, to open the next page in
+	 *                            the background; null to open pages only when
+	 *                            the caller needs their rows
+	 */
+	PaginatedTableIterator(WebDriver driver, WaitEngine wait, By tableLocator, By nextPageLocator,
+			By lastPageLocator, By previousPageLocator, String... headers) {
+		this.driver = driver;
+		this.wait = wait;
+		this.tableLocator = tableLocator;
+		this.nextPageLocator = nextPageLocator;
+		this.lastPageLocator = lastPageLocator;
+		this.previousPageLocator = previousPageLocator;
+		this.headers = Arrays.asList(headers);
+		this.prefetcher = previousPageLocator != null ? Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "table-prefetch");
+			thread.setDaemon(true);
+			return thread;
+		}) : null;
+
+		Page first = readCurrentPage();
+		consume(first);
+		schedulePrefetch();
+	}
+
+	@Override
+	public boolean hasNext() {
+		while (!currentRows.hasNext()) {
+			if (lastPage) {
+				return false;
+			}
+			consume(takeNextPage());
+			schedulePrefetch();
+		}
+		return true;
+	}
+
+	@Override
+	public List<String> next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return currentRows.next();
+	}
+
+	/**
+	 * Stop prefetching. A page still being opened is waited for, at most the
+	 * positive wait budget, and when the table has already moved past the page
+	 * being consumed 'Previous' is clicked to return to it.
+	 */
+	@Override
+	public void close() {
+		if (prefetcher == null || closed) {
+			return;
+		}
+		closed = true;
+		prefetcher.shutdown();
+		if (nextPage == null) {
+			return;
+		}
+		try {
+			nextPage.get(wait.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return;
+		} catch (ExecutionException e) {
+			// the page was never going to be read; 'ahead' tells whether it was opened
+		} catch (TimeoutException e) {
+			nextPage.cancel(true);
+			System.out.println("Table page prefetch did not finish, the table may be one page ahead");
+			return;
+		} finally {
+			nextPage = null;
+		}
+		if (ahead) {
+			openPreviousPage();
+		}
+	}
+
+	private void consume(Page page) {
+		currentRows = page.rows.iterator();
+		currentFirstRow = page.rows.isEmpty() ? null : page.rows.get(0);
+		lastPage = page.last;
+	}
+
+	/**
+	 * Open the next page on the prefetch thread, counting its commands in the
+	 * scenario's metrics; the caller does not use the driver meanwhile.
+	 */
+	private void schedulePrefetch() {
+		if (prefetcher != null && !lastPage) {
+			ahead = false;
+			final CommandMetrics metrics = CommandMetrics.current();
+			nextPage = prefetcher.submit(() -> {
+				if (closed) {
+					return null;
+				}
+				CommandMetrics.bind(metrics);
+				try {
+					return openNextPage();
+				} finally {
+					CommandMetrics.clear();
+				}
+			});
+		}
+	}
+
+	private Page takeNextPage() {
+		if (nextPage == null) {
+			return openNextPage();
+		}
+		try {
+			return nextPage.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for the next table page", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			throw cause instanceof RuntimeException ? (RuntimeException) cause
+					: new IllegalStateException("Unable to open the next table page", cause);
+		} finally {
+			nextPage = null;
+		}
+	}
+
+	/**
+	 * Click 'Next', wait until the table shows a different page and read it.
+	 */
+	private Page openNextPage() {
+		final WebElement previous = table;
+		driver.findElement(nextPageLocator).click();
+		ahead = true;
+		wait.until(d -> {
+			try {
+				return Boolean.TRUE.equals(((JavascriptExecutor) d).executeScript(PAGE_CHANGED_SCRIPT, previous));
+			} catch (StaleElementReferenceException e) {
+				return true;
+			}
+		});
+		return readCurrentPage();
+	}
+
+	/**
+	 * Click 'Previous' and wait until the table shows the page being consumed
+	 * again, recognised by its first row.
+	 */
+	private void openPreviousPage() {
+		driver.findElement(previousPageLocator).click();
+		wait.until(d -> {
+			try {
+				List<List<String>> rows = readCurrentPage().rows;
+				return currentFirstRow == null ? rows.isEmpty() : !rows.isEmpty() && currentFirstRow.equals(rows.get(0));
+			} catch (StaleElementReferenceException e) {
+				return false;
+			}
+		});
+	}
+
+	private Page readCurrentPage() {
+		table = wait.untilVisible(tableLocator);
+		TableData data = BasePage
+				.toTableData(((JavascriptExecutor) driver).executeScript(READ_PAGE_SCRIPT, table, headers));
+		return new Page(data.getRows(), isLastPage());
+	}
+
+	/**
+	 * The last page is reached when the indicator is displayed or the 'Next'
+	 * button is missing, hidden or disabled. Uses findElements so an absent
+	 * element costs one round trip instead of a wait timeout.
+	 */
+	private boolean isLastPage() {
+		if (lastPageLocator != null) {
+			for (WebElement indicator : driver.findElements(lastPageLocator)) {
+				if (indicator.isDisplayed()) {
+					return true;
+				}
+			}
+		}
+		List<WebElement> next = driver.findElements(nextPageLocator);
+		if (next.isEmpty()) {
+			return true;
+		}
+		WebElement button = next.get(0);
+		String classes = button.getAttribute("class");
+		return !button.isDisplayed() || !button.isEnabled() || "true".equals(button.getAttribute("aria-disabled"))
+				|| (classes != null && classes.contains("disabled"));
+	}
+
+	private static final class Page {
+
+		private final List<List<String>> rows;
+		private final boolean last;
+
+		Page(List<List<String>> rows, boolean last) {
+			this.rows = rows;
+			this.last = last;
+		}
+	}
+
+}
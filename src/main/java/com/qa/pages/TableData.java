@@ -0,0 +1,121 @@
+package com.qa.pages;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Snapshot of an HTML table read by {@link BasePage#readTable}. Cells are kept
+ * as trimmed text and can be read by row and column index or by header.
+ */
+public class TableData {
+
+	private final List<String> headers;
+	private final List<List<String>> rows;
+	private final Map<String, Integer> headerIndex = new HashMap<String, Integer>();
+
+	public TableData(List<String> headers, List<List<String>> rows) {
+		this.headers = Collections.unmodifiableList(new ArrayList<String>(headers));
+		this.rows = Collections.unmodifiableList(rows);
+		for (int i = 0; i < headers.size(); i++) {
+			headerIndex.putIfAbsent(headers.get(i), i);
+			headerIndex.putIfAbsent(headers.get(i).toLowerCase(), i);
+		}
+	}
+
+	public List<String> getHeaders() {
+		return headers;
+	}
+
+	/**
+	 * @return the data rows, excluding the header row
+	 */
+	public List<List<String>> getRows() {
+		return rows;
+	}
+
+	public int getRowCount() {
+		return rows.size();
+	}
+
+	/**
+	 * @param header header text, matched exactly or ignoring case
+	 * @return the 0-based column index
+	 * @throws IllegalArgumentException if no column has that header
+	 */
+	public int indexOf(String header) {
+		Integer index = headerIndex.get(header);
+		if (index == null) {
+			index = headerIndex.get(header.toLowerCase());
+		}
+		if (index == null) {
+			throw new IllegalArgumentException("No column with header '" + header + "' in " + headers);
+		}
+		return index;
+	}
+
+	/**
+	 * @return the cell text, or null when the row is shorter than the column
+	 *         index (e.g. because of colspan)
+	 */
+	public String getString(int row, int column) {
+		List<String> cells = rows.get(row);
+		return column < cells.size() ? cells.get(column) : null;
+	}
+
+	public String getString(int row, String header) {
+		return getString(row, indexOf(header));
+	}
+
+	/**
+	 * Parse the cell as an integer, ignoring thousands separators.
+	 */
+	public long getLong(int row, String header) {
+		return Long.parseLong(numeric(getString(row, header)));
+	}
+
+	/**
+	 * Parse the cell as a decimal number, ignoring thousands separators.
+	 */
+	public double getDouble(int row, String header) {
+		return Double.parseDouble(numeric(getString(row, header)));
+	}
+
+	/**
+	 * @return every value of the column, top to bottom
+	 */
+	public List<String> getColumn(String header) {
+		int column = indexOf(header);
+		List<String> values = new ArrayList<String>(rows.size());
+		for (int i = 0; i < rows.size(); i++) {
+			values.add(getString(i, column));
+		}
+		return values;
+	}
+
+	/**
+	 * @return the row as header to cell text
+	 */
+	public Map<String, String> getRowAsMap(int row) {
+		Map<String, String> values = new HashMap<String, String>();
+		for (int i = 0; i < headers.size(); i++) {
+			values.put(headers.get(i), getString(row, i));
+		}
+		return values;
+	}
+
+	private static String numeric(String text) {
+		if (text == null) {
+			throw new NumberFormatException("Cell is empty");
+		}
+		return text.replace(",", "").trim();
+	}
+
+	@Override
+	public String toString() {
+		return "TableData" + headers + " with " + rows.size() + " rows";
+	}
+
+}
@@ -0,0 +1,215 @@
+package com.qa.pages;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.ui.ExpectedConditions;
+import org.openqa.selenium.support.ui.WebDriverWait;
+
+import com.qa.factory.CommandMetrics;
+import com.qa.util.ConfigManager;
+
+/**
+ * Wait subsystem used by {@link BasePage}. Positive waits (the element is
+ * expected) use the wait.timeout.seconds budget; negative checks (the element
+ * may legitimately be absent) use the much smaller wait.negative.timeoutMs
+ * budget. Polling intervals adapt to how long each locator usually takes to
+ * appear. With wait.domMutation.enabled, negative checks instead listen for
+ * DOM mutations in the page and give up as soon as the DOM has been quiet for
+ * wait.domQuietMs.
+ */
+public class WaitEngine {
+
+	/**
+	 * Resolves true as soon as the locator matches a visible element, false once
+	 * the DOM has stopped changing for the quiet period or the timeout expires.
+	 */
+	private static final String MUTATION_WAIT_SCRIPT = LocatorScript.FUNCTIONS
+			+ "var strategy = arguments[0], value = arguments[1], timeout = arguments[2], quiet = arguments[3];"
+			+ "var done = arguments[arguments.length - 1], finished = false, quietTimer = null, timer = null, observer = null;"
+			+ "function visible() { var found = qaFind(strategy, value);"
+			+ "  for (var i = 0; i < found.length; i++) { if (qaVisible(found[i])) { return true; } } return false; }"
+			+ "function finish(result) { if (finished) { return; } finished = true;"
+			+ "  if (observer) { observer.disconnect(); } clearTimeout(timer); clearTimeout(quietTimer); done(result); }"
+			+ "function settle() { clearTimeout(quietTimer);"
+			+ "  quietTimer = setTimeout(function() { if (document.readyState === 'complete') { finish(visible()); } else { settle(); } }, quiet); }"
+			+ "if (visible()) { finish(true); return; }"
+			+ "observer = new MutationObserver(function() { if (visible()) { finish(true); } else { settle(); } });"
+			+ "observer.observe(document.documentElement, { childList: true, subtree: true, attributes: true });"
+			+ "timer = setTimeout(function() { finish(visible()); }, timeout);"
+			+ "settle();";
+
+	private static final Map<String, Latency> LATENCIES = new ConcurrentHashMap<String, Latency>();
+
+	private final WebDriver driver;
+	private final Duration positiveTimeout;
+	private final Duration negativeTimeout;
+	private final boolean domMutation;
+	private final long domQuietMillis;
+	private final long minPollMillis;
+	private final long maxPollMillis;
+
+	public WaitEngine(WebDriver driver) {
+		ConfigManager config = ConfigManager.get();
+		this.driver = driver;
+		this.positiveTimeout = Duration.ofSeconds(config.getLong("wait.timeout.seconds", 20));
+		this.negativeTimeout = Duration.ofMillis(config.getLong("wait.negative.timeoutMs", 2000));
+		this.domMutation = config.getBoolean("wait.domMutation.enabled", false);
+		this.domQuietMillis = config.getLong("wait.domQuietMs", 200);
+		this.minPollMillis = config.getLong("wait.poll.minMs", 25);
+		this.maxPollMillis = config.getLong("wait.poll.maxMs", 500);
+	}
+
+	/**
+	 * Wait, within the positive budget, until the element is visible.
+	 *
+	 * @param locator The By locator for the element.
+	 * @return The visible element.
+	 * @throws TimeoutException if it does not become visible in time
+	 */
+	public WebElement untilVisible(By locator) {
+		return until(locator, ExpectedConditions.visibilityOfElementLocated(locator), positiveTimeout);
+	}
+
+	/**
+	 * Wait, within the positive budget, until the element is clickable.
+	 *
+	 * @param locator The By locator for the element.
+	 * @return The clickable element.
+	 * @throws TimeoutException if it does not become clickable in time
+	 */
+	public WebElement untilClickable(By locator) {
+		return until(locator, ExpectedConditions.elementToBeClickable(locator), positiveTimeout);
+	}
+
+	/**
+	 * Wait, within the positive budget, for an arbitrary condition.
+	 *
+	 * @param condition Returns a non-null, non-false value once satisfied.
+	 * @return The value returned by the condition.
+	 */
+	public <V> V until(Function<? super WebDriver, V> condition) {
+		return until(null, condition, positiveTimeout);
+	}
+
+	/**
+	 * Check whether an element that may legitimately be absent is visible. The
+	 * page is checked immediately; if the element is not there the check waits at
+	 * most the negative budget, returning early once the DOM is quiet when DOM
+	 * mutation waiting is enabled.
+	 *
+	 * @param locator The By locator for the element.
+	 * @return true if the element is, or becomes, visible.
+	 */
+	public boolean isVisible(By locator) {
+		CommandMetrics.beginWait();
+		try {
+			return checkVisible(locator);
+		} finally {
+			CommandMetrics.endWait();
+		}
+	}
+
+	/**
+	 * @return the positive wait budget
+	 */
+	public Duration getTimeout() {
+		return positiveTimeout;
+	}
+
+	private boolean checkVisible(By locator) {
+		if (isVisibleNow(locator)) {
+			return true;
+		}
+		if (negativeTimeout.isZero()) {
+			return false;
+		}
+		List<String> arguments = domMutation ? LocatorScript.toArguments(locator) : null;
+		if (arguments != null) {
+			try {
+				return Boolean.TRUE.equals(((JavascriptExecutor) driver).executeAsyncScript(MUTATION_WAIT_SCRIPT,
+						arguments.get(0), arguments.get(1), negativeTimeout.toMillis(), domQuietMillis));
+			} catch (WebDriverException e) {
+				System.out.println("DOM mutation wait failed, falling back to polling: " + e.getMessage());
+			}
+		}
+		try {
+			until(locator, ExpectedConditions.visibilityOfElementLocated(locator), negativeTimeout);
+			return true;
+		} catch (TimeoutException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Single round trip check, no waiting.
+	 */
+	private boolean isVisibleNow(By locator) {
+		try {
+			for (WebElement element : driver.findElements(locator)) {
+				if (element.isDisplayed()) {
+					return true;
+				}
+			}
+		} catch (StaleElementReferenceException e) {
+			return false;
+		}
+		return false;
+	}
+
+	private <V> V until(By locator, Function<? super WebDriver, V> condition, Duration timeout) {
+		long start = System.nanoTime();
+		CommandMetrics.beginWait();
+		try {
+			V value = new WebDriverWait(driver, timeout, pollInterval(locator)).until(condition);
+			if (locator != null) {
+				latencyOf(locator).record((System.nanoTime() - start) / 1_000_000);
+			}
+			return value;
+		} finally {
+			CommandMetrics.endWait();
+		}
+	}
+
+	/**
+	 * Poll at roughly a fifth of the locator's usual time to appear, so fast
+	 * elements are picked up quickly and slow ones are not hammered.
+	 */
+	private Duration pollInterval(By locator) {
+		long interval = locator == null ? 100 : latencyOf(locator).average() / 5;
+		return Duration.ofMillis(Math.max(minPollMillis, Math.min(maxPollMillis, interval)));
+	}
+
+	private static Latency latencyOf(By locator) {
+		return LATENCIES.computeIfAbsent(String.valueOf(locator), key -> new Latency());
+	}
+
+	/**
+	 * Exponentially weighted moving average of observed wait times for a locator.
+	 */
+	private static final class Latency {
+
+		private static final double WEIGHT = 0.3;
+
+		private volatile double averageMillis = 500;
+
+		synchronized void record(long millis) {
+			averageMillis = WEIGHT * millis + (1 - WEIGHT) * averageMillis;
+		}
+
+		long average() {
+			return (long) averageMillis;
+		}
+	}
+
+}
@@ -0,0 +1,278 @@
+package com.qa.util;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Database checks that run in the background while the scenario keeps driving
+ * the browser. A step submits a condition; a worker polls it with exponential
+ * backoff until it holds or db.verify.timeoutMs has passed. Pending checks
+ * belong to the scenario thread that submitted them and are joined with
+ * {@link #awaitPending()} at the end of a step or of the scenario, where every
+ * failed check is reported with the step that submitted it.
+ * <p>
+ * Every poll borrows its own pooled connection, so checks only see committed
+ * data: rows a scenario seeded through {@link DatabaseUtil#forScenario()} stay
+ * in that connection's open transaction and are invisible to them. Check
+ * seeded data synchronously through the scenario's DatabaseUtil instead.
+ *
+ * <pre>
+ * AsyncDbVerifier.shared().expectValue("order is stored", "NEW",
+ * 		"select status from orders where id = ?", orderId);
+ * </pre>
+ */
+public class AsyncDbVerifier {
+
+	private static final ThreadLocal<Scope> SCOPE = ThreadLocal.withInitial(Scope::new);
+
+	private static volatile AsyncDbVerifier shared;
+
+	private final ThreadPoolExecutor workers;
+	private final long timeoutMillis;
+	private final long backoffMillis;
+	private final long maxBackoffMillis;
+
+	/**
+	 * @param threads          checks polled at the same time; each poll holds one
+	 *                         pooled connection, so keep this below
+	 *                         db.pool.maxSize
+	 * @param queueSize        checks waiting for a worker before the submitting
+	 *                         thread polls its own check
+	 * @param timeoutMillis    how long a check may take to hold
+	 * @param backoffMillis    pause after the first failed poll, doubled after
+	 *                         every further one
+	 * @param maxBackoffMillis longest pause between two polls
+	 */
+	public AsyncDbVerifier(int threads, int queueSize, long timeoutMillis, long backoffMillis, long maxBackoffMillis) {
+		this.timeoutMillis = timeoutMillis;
+		this.backoffMillis = backoffMillis;
+		this.maxBackoffMillis = maxBackoffMillis;
+		this.workers = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<Runnable>(queueSize), runnable -> {
+					Thread thread = new Thread(runnable, "db-verifier");
+					thread.setDaemon(true);
+					return thread;
+				}, new ThreadPoolExecutor.CallerRunsPolicy());
+		this.workers.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * @return the verifier shared by every scenario in this JVM, configured from
+	 *         db.verify.* keys
+	 */
+	public static AsyncDbVerifier shared() {
+		if (shared == null) {
+			synchronized (AsyncDbVerifier.class) {
+				if (shared == null) {
+					ConfigManager config = ConfigManager.get();
+					shared = new AsyncDbVerifier(config.getInt("db.verify.threads", 4),
+							config.getInt("db.verify.queueSize", 64), config.getLong("db.verify.timeoutMs", 10000),
+							config.getLong("db.verify.backoffMs", 100), config.getLong("db.verify.maxBackoffMs", 2000));
+				}
+			}
+		}
+		return shared;
+	}
+
+	/**
+	 * Tell the verifier which step is running on this thread, so checks it
+	 * submits can be attributed to it.
+	 *
+	 * @param step the step text
+	 */
+	public static void startStep(String step) {
+		Scope scope = SCOPE.get();
+		scope.stepIndex++;
+		scope.step = "step " + scope.stepIndex + " '" + step + "'";
+	}
+
+	/**
+	 * Poll a condition in the background until it holds.
+	 *
+	 * @param description what is checked, used in the failure message
+	 * @param condition   evaluated against a {@link DatabaseUtil} that holds a
+	 *                    pooled connection only for the duration of one poll
+	 */
+	public void verify(String description, Predicate<DatabaseUtil> condition) {
+		submit(description, condition, () -> null);
+	}
+
+	/**
+	 * Poll a query in the background until its single value equals the expected
+	 * value. Values are compared as strings, so the check does not depend on the
+	 * JDBC type of the column.
+	 *
+	 * @param description what is checked, used in the failure message
+	 * @param expected    the expected value, null for SQL NULL or no row
+	 * @param query       query returning one value
+	 * @param params      values for the ? placeholders in the query
+	 */
+	public void expectValue(String description, Object expected, final String query, final Object... params) {
+		final String expectedText = expected == null ? null : String.valueOf(expected);
+		final AtomicReference<Object> observed = new AtomicReference<Object>();
+		submit(description, db -> {
+			Object value = db.getSingleValue(query, params);
+			observed.set(value);
+			return Objects.equals(expectedText, value == null ? null : String.valueOf(value));
+		}, () -> "expected <" + expectedText + "> but was <" + observed.get() + ">");
+	}
+
+	/**
+	 * Poll a query in the background until it returns the expected number of
+	 * rows.
+	 *
+	 * @param description what is checked, used in the failure message
+	 * @param expected    the expected row count
+	 * @param query       the query
+	 * @param params      values for the ? placeholders in the query
+	 */
+	public void expectRowCount(String description, final int expected, final String query, final Object... params) {
+		final AtomicReference<Integer> observed = new AtomicReference<Integer>();
+		submit(description, db -> {
+			int rows = db.executeQueryResult(query, params).getRowCount();
+			observed.set(rows);
+			return rows == expected;
+		}, () -> "expected " + expected + " rows but was " + observed.get());
+	}
+
+	/**
+	 * Wait for every check submitted on this thread since the last call.
+	 *
+	 * @throws AssertionError listing every check that did not hold, with the
+	 *                        step that submitted it
+	 */
+	public static void awaitPending() {
+		Scope scope = SCOPE.get();
+		if (scope.pending.isEmpty()) {
+			return;
+		}
+		List<Check> checks = new ArrayList<Check>(scope.pending);
+		scope.pending.clear();
+		List<String> failures = new ArrayList<String>();
+		for (Check check : checks) {
+			String failure = check.join();
+			if (failure != null) {
+				failures.add(check.step + ": " + check.description + " - " + failure);
+			}
+		}
+		if (!failures.isEmpty()) {
+			throw new AssertionError(failures.size() + " of " + checks.size() + " database checks failed:\n  "
+					+ String.join("\n  ", failures));
+		}
+	}
+
+	/**
+	 * Join the pending checks of the scenario on this thread and forget its
+	 * steps, whatever the outcome.
+	 *
+	 * @throws AssertionError as {@link #awaitPending()}
+	 */
+	public static void endScenario() {
+		try {
+			awaitPending();
+		} finally {
+			SCOPE.remove();
+		}
+	}
+
+	private void submit(String description, final Predicate<DatabaseUtil> condition,
+			final Supplier<String> lastObservation) {
+		Scope scope = SCOPE.get();
+		final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+		Future<String> result = workers.submit(() -> poll(condition, lastObservation, deadline));
+		scope.pending.add(new Check(scope.step, description, result, timeoutMillis));
+	}
+
+	/**
+	 * @return null once the condition holds, otherwise why it did not
+	 */
+	private String poll(Predicate<DatabaseUtil> condition, Supplier<String> lastObservation, long deadline)
+			throws InterruptedException {
+		long start = System.nanoTime();
+		long pause = backoffMillis;
+		int polls = 0;
+		String lastError = null;
+		while (true) {
+			polls++;
+			DatabaseUtil db = null;
+			try {
+				db = new DatabaseUtil();
+				if (condition.test(db)) {
+					return null;
+				}
+				lastError = null;
+			} catch (SQLException | RuntimeException e) {
+				lastError = e.getMessage(); // the data may not be there yet, keep polling
+			} finally {
+				if (db != null) {
+					db.close();
+				}
+			}
+			long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+			if (remaining <= 0) {
+				String observation = lastError != null ? "last error: " + lastError : lastObservation.get();
+				return "not met after " + polls + " polls in "
+						+ TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms"
+						+ (observation == null ? "" : ", " + observation);
+			}
+			Thread.sleep(Math.min(pause, remaining));
+			pause = Math.min(maxBackoffMillis, pause * 2);
+		}
+	}
+
+	/**
+	 * The submitted checks and the current step of the scenario on one thread.
+	 */
+	private static final class Scope {
+
+		private final List<Check> pending = new ArrayList<Check>();
+		private int stepIndex;
+		private String step = "before the first step";
+	}
+
+	private static final class Check {
+
+		private final String step;
+		private final String description;
+		private final Future<String> result;
+		private final long timeoutMillis;
+
+		Check(String step, String description, Future<String> result, long timeoutMillis) {
+			this.step = step;
+			this.description = description;
+			this.result = result;
+			this.timeoutMillis = timeoutMillis;
+		}
+
+		/**
+		 * @return null if the check held, otherwise why it did not
+		 */
+		String join() {
+			try {
+				// the check stops itself at its deadline; the margin covers a poll in flight
+				return result.get(timeoutMillis + 30000, TimeUnit.MILLISECONDS);
+			} catch (ExecutionException e) {
+				return "failed: " + e.getCause();
+			} catch (TimeoutException e) {
+				result.cancel(true);
+				return "did not finish in time";
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				result.cancel(true);
+				return "interrupted";
+			}
+		}
+	}
+
+}
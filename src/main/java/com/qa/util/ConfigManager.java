@@ -0,0 +1,294 @@
+package com.qa.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Process-wide, immutable configuration snapshot. It is loaded once from these
+ * layers, each overriding the previous one:
+ * <ol>
+ * <li>config/config.properties and config/database.properties on the
+ * classpath</li>
+ * <li>config/config-&lt;env&gt;.properties for the environment selected by
+ * setUpEnvironment</li>
+ * <li>environment variables named after a known key, upper-cased with dots
+ * replaced by underscores (db.url is overridden by DB_URL)</li>
+ * <li>-D system properties</li>
+ * </ol>
+ * With config.hotReload=true the files are read from config.sourceDir
+ * (src/test/resources by default) instead of the classpath copies, which only
+ * change when the build copies them again, and are watched there; the
+ * snapshot is swapped atomically when they change. The classpath copies are
+ * used when that directory does not exist.
+ */
+public final class ConfigManager {
+
+	private static final String[] BASE_FILES = { "config/config.properties", "config/database.properties" };
+
+	private static final AtomicReference<ConfigManager> SNAPSHOT = new AtomicReference<ConfigManager>();
+	private static volatile Thread watcher;
+
+	private final Map<String, String> values;
+	private final List<URL> sources;
+
+	private ConfigManager(Map<String, String> values, List<URL> sources) {
+		this.values = Collections.unmodifiableMap(values);
+		this.sources = Collections.unmodifiableList(sources);
+	}
+
+	/**
+	 * This method is used to get the current configuration snapshot, loading it
+	 * on first use.
+	 *
+	 * @return the shared snapshot
+	 */
+	public static ConfigManager get() {
+		ConfigManager config = SNAPSHOT.get();
+		if (config == null) {
+			synchronized (ConfigManager.class) {
+				config = SNAPSHOT.get();
+				if (config == null) {
+					config = load();
+					SNAPSHOT.set(config);
+					if (config.getBoolean("config.hotReload", false)) {
+						startWatching(config);
+					}
+				}
+			}
+		}
+		return config;
+	}
+
+	/**
+	 * Re-read every layer and swap the shared snapshot.
+	 *
+	 * @return the new snapshot
+	 */
+	public static ConfigManager reload() {
+		ConfigManager config = load();
+		SNAPSHOT.set(config);
+		return config;
+	}
+
+	public String getString(String key) {
+		return values.get(key);
+	}
+
+	public String getString(String key, String defaultValue) {
+		String value = values.get(key);
+		return value == null ? defaultValue : value;
+	}
+
+	public int getInt(String key, int defaultValue) {
+		String value = values.get(key);
+		return value == null ? defaultValue : Integer.parseInt(value.trim());
+	}
+
+	public long getLong(String key, long defaultValue) {
+		String value = values.get(key);
+		return value == null ? defaultValue : Long.parseLong(value.trim());
+	}
+
+	public double getDouble(String key, double defaultValue) {
+		String value = values.get(key);
+		return value == null ? defaultValue : Double.parseDouble(value.trim());
+	}
+
+	public boolean getBoolean(String key, boolean defaultValue) {
+		String value = values.get(key);
+		return value == null ? defaultValue : Boolean.parseBoolean(value.trim());
+	}
+
+	/**
+	 * @param key a comma separated property
+	 * @return the trimmed, non-empty items, or an empty list if the key is unset
+	 */
+	public List<String> getList(String key) {
+		List<String> items = new ArrayList<String>();
+		String value = values.get(key);
+		if (value != null) {
+			for (String item : value.split(",")) {
+				if (!item.trim().isEmpty()) {
+					items.add(item.trim());
+				}
+			}
+		}
+		return items;
+	}
+
+	/**
+	 * @param key a property holding an environment name, e.g. setUpEnvironment
+	 * @return the value of &lt;env&gt;.url, or an empty string if the environment
+	 *         is unknown
+	 */
+	public String getEnvironmentUrl(String key) {
+		String environment = getString(key, "");
+		String url = getString(environment.toLowerCase() + ".url");
+		if (url == null) {
+			System.out.println("Invalid environment set up in config file");
+			return "";
+		}
+		return url;
+	}
+
+	/**
+	 * @return every key and value of the snapshot, sorted by key
+	 */
+	public Map<String, String> asMap() {
+		return values;
+	}
+
+	/**
+	 * @return a mutable copy for APIs that expect {@link Properties}
+	 */
+	public Properties toProperties() {
+		Properties prop = new Properties();
+		prop.putAll(values);
+		return prop;
+	}
+
+	private static ConfigManager load() {
+		Map<String, String> values = new TreeMap<String, String>();
+		List<URL> sources = new ArrayList<URL>();
+
+		for (String file : BASE_FILES) {
+			loadResource(file, null, values, sources);
+		}
+		Path sourceDir = null;
+		if (Boolean.parseBoolean(System.getProperty("config.hotReload", values.get("config.hotReload")))) {
+			Path directory = Paths.get(System.getProperty("config.sourceDir",
+					values.getOrDefault("config.sourceDir", "src/test/resources")));
+			if (Files.isDirectory(directory)) {
+				sourceDir = directory; // edited files take effect without a rebuild
+				values.clear();
+				sources.clear();
+				for (String file : BASE_FILES) {
+					loadResource(file, sourceDir, values, sources);
+				}
+			}
+		}
+
+		String environment = System.getProperty("setUpEnvironment",
+				System.getenv().getOrDefault("SETUPENVIRONMENT", values.get("setUpEnvironment")));
+		if (environment != null) {
+			loadResource("config/config-" + environment.toLowerCase() + ".properties", sourceDir, values, sources);
+		}
+
+		for (String key : new ArrayList<String>(values.keySet())) {
+			String env = System.getenv(key.toUpperCase().replace('.', '_'));
+			if (env != null) {
+				values.put(key, env);
+			}
+		}
+
+		for (String key : System.getProperties().stringPropertyNames()) {
+			values.put(key, System.getProperty(key));
+		}
+
+		return new ConfigManager(values, sources);
+	}
+
+	/**
+	 * @param sourceDir directory to read the file from, or null for the
+	 *                  classpath
+	 */
+	private static void loadResource(String name, Path sourceDir, Map<String, String> values, List<URL> sources) {
+		URL url = sourceDir == null ? Thread.currentThread().getContextClassLoader().getResource(name)
+				: toUrl(sourceDir.resolve(name));
+		if (url == null && sourceDir == null) {
+			url = ConfigManager.class.getClassLoader().getResource(name);
+		}
+		if (url == null) {
+			return;
+		}
+		Properties prop = new Properties();
+		try (InputStream in = url.openStream()) {
+			prop.load(in);
+		} catch (IOException e) {
+			e.printStackTrace();
+			throw new RuntimeException("Failed to load configuration " + url + ": " + e.getMessage());
+		}
+		for (String key : prop.stringPropertyNames()) {
+			values.put(key, prop.getProperty(key));
+		}
+		sources.add(url);
+	}
+
+	private static URL toUrl(Path file) {
+		if (!Files.isRegularFile(file)) {
+			return null;
+		}
+		try {
+			return file.toUri().toURL();
+		} catch (MalformedURLException e) {
+			throw new RuntimeException("Failed to load configuration " + file + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Watch the directories of file-based sources and reload when any of them
+	 * changes. Sources inside jars cannot be watched and are skipped.
+	 */
+	private static void startWatching(ConfigManager config) {
+		if (watcher != null) {
+			return;
+		}
+		final Set<Path> directories = new LinkedHashSet<Path>();
+		for (URL source : config.sources) {
+			if ("file".equals(source.getProtocol())) {
+				try {
+					directories.add(Paths.get(source.toURI()).getParent());
+				} catch (URISyntaxException e) {
+					System.out.println("Unable to watch configuration " + source + ": " + e.getMessage());
+				}
+			}
+		}
+		if (directories.isEmpty()) {
+			return;
+		}
+
+		Thread thread = new Thread(() -> {
+			try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+				for (Path directory : directories) {
+					directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+							StandardWatchEventKinds.ENTRY_MODIFY);
+				}
+				while (!Thread.currentThread().isInterrupted()) {
+					WatchKey key = watchService.take();
+					key.pollEvents();
+					key.reset();
+					reload();
+					System.out.println("Configuration reloaded from " + directories);
+				}
+			} catch (InterruptedException | ClosedWatchServiceException e) {
+				Thread.currentThread().interrupt();
+			} catch (IOException | RuntimeException e) {
+				System.out.println("Configuration hot reload stopped: " + e.getMessage());
+			}
+		}, "config-watcher");
+		thread.setDaemon(true);
+		thread.start();
+		watcher = thread;
+	}
+
+}
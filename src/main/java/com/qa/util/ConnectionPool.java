@@ -0,0 +1,257 @@
+package com.qa.util;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared, bounded pool of JDBC connections. Each pooled connection keeps its
+ * own LRU cache of prepared statements so repeated queries are parsed once per
+ * connection.
+ */
+public class ConnectionPool {
+
+	private static final Map<String, ConnectionPool> POOLS = new ConcurrentHashMap<String, ConnectionPool>();
+
+	private final String url;
+	private final String username;
+	private final String password;
+	private final int statementCacheSize;
+	private final long borrowTimeoutMillis;
+
+	private final Semaphore permits;
+	private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<PooledConnection>();
+	private final AtomicInteger active = new AtomicInteger();
+	private final AtomicInteger waiting = new AtomicInteger();
+
+	/**
+	 * Creates a pool of its own, not shared through {@link #getInstance}, e.g.
+	 * to check the pool's limits without exhausting the shared one. The caller
+	 * shuts it down.
+	 *
+	 * @param maxSize             connections open at most
+	 * @param statementCacheSize  prepared statements cached per connection
+	 * @param borrowTimeoutMillis how long borrow() waits on an exhausted pool
+	 */
+	public ConnectionPool(String url, String username, String password, int maxSize, int statementCacheSize,
+			long borrowTimeoutMillis) {
+		this.url = url;
+		this.username = username;
+		this.password = password;
+		this.statementCacheSize = statementCacheSize;
+		this.borrowTimeoutMillis = borrowTimeoutMillis;
+		this.permits = new Semaphore(maxSize, true);
+	}
+
+	/**
+	 * This method is used to get the pool shared by every user of the same
+	 * database url and account.
+	 *
+	 * @param config configuration holding db.url, db.username, db.password and
+	 *               the optional db.pool.* settings
+	 * @return the shared pool
+	 */
+	public static ConnectionPool getInstance(ConfigManager config) {
+		final String url = config.getString("db.url");
+		final String username = config.getString("db.username");
+		final String password = config.getString("db.password");
+		final int maxSize = config.getInt("db.pool.maxSize", 10);
+		final int cacheSize = config.getInt("db.pool.statementCacheSize", 50);
+		final long timeout = config.getLong("db.pool.borrowTimeoutMs", 30000);
+
+		return POOLS.computeIfAbsent(url + "|" + username, key -> {
+			ConnectionPool pool = new ConnectionPool(url, username, password, maxSize, cacheSize, timeout);
+			Runtime.getRuntime().addShutdownHook(new Thread(pool::shutdown));
+			return pool;
+		});
+	}
+
+	/**
+	 * Borrow a connection, waiting up to db.pool.borrowTimeoutMs when the pool is
+	 * exhausted.
+	 *
+	 * @return a pooled connection that must be given back with
+	 *         {@link #release(PooledConnection)}
+	 * @throws SQLException if no connection can be obtained in time
+	 */
+	public PooledConnection borrow() throws SQLException {
+		waiting.incrementAndGet();
+		try {
+			if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+				throw new SQLException("Timed out after " + borrowTimeoutMillis + " ms waiting for a connection: "
+						+ getStats());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for a connection", e);
+		} finally {
+			waiting.decrementAndGet();
+		}
+
+		try {
+			PooledConnection pooled;
+			while ((pooled = idle.pollFirst()) != null) {
+				if (pooled.isUsable()) {
+					break;
+				}
+				pooled.closeQuietly();
+			}
+			if (pooled == null) {
+				pooled = new PooledConnection(DriverManager.getConnection(url, username, password),
+						statementCacheSize);
+			}
+			active.incrementAndGet();
+			return pooled;
+		} catch (SQLException | RuntimeException e) {
+			permits.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * Give a borrowed connection back to the pool.
+	 *
+	 * @param pooled the connection returned by {@link #borrow()}
+	 */
+	public void release(PooledConnection pooled) {
+		if (pooled == null) {
+			return;
+		}
+		active.decrementAndGet();
+		try {
+			if (!pooled.getConnection().getAutoCommit()) {
+				pooled.getConnection().rollback();
+				pooled.getConnection().setAutoCommit(true);
+			}
+			idle.offerFirst(pooled);
+		} catch (SQLException e) {
+			pooled.closeQuietly();
+		} finally {
+			permits.release();
+		}
+	}
+
+	/**
+	 * Close every idle connection.
+	 */
+	public void shutdown() {
+		PooledConnection pooled;
+		while ((pooled = idle.pollFirst()) != null) {
+			pooled.closeQuietly();
+		}
+	}
+
+	/**
+	 * @return number of connections currently borrowed
+	 */
+	public int getActiveCount() {
+		return active.get();
+	}
+
+	/**
+	 * @return number of open connections waiting in the pool
+	 */
+	public int getIdleCount() {
+		return idle.size();
+	}
+
+	/**
+	 * @return number of threads blocked waiting for a connection
+	 */
+	public int getWaitingCount() {
+		return waiting.get();
+	}
+
+	public String getStats() {
+		return "Connection pool [" + url + "]: active=" + getActiveCount() + ", idle=" + getIdleCount() + ", waiting="
+				+ getWaitingCount();
+	}
+
+	/**
+	 * A physical connection together with its prepared-statement cache.
+	 */
+	public static class PooledConnection {
+
+		private final Connection connection;
+		private final Map<String, PreparedStatement> statementCache;
+
+		PooledConnection(Connection connection, final int cacheSize) {
+			this.connection = connection;
+			this.statementCache = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+					if (size() > cacheSize) {
+						closeQuietly(eldest.getValue());
+						return true;
+					}
+					return false;
+				}
+			};
+		}
+
+		public Connection getConnection() {
+			return connection;
+		}
+
+		/**
+		 * Get a cached prepared statement for the query, preparing it on first use.
+		 * Cached statements must not be closed by the caller.
+		 *
+		 * @param query SQL with ? placeholders
+		 * @return a prepared statement with its parameters cleared
+		 * @throws SQLException if the statement cannot be prepared
+		 */
+		public PreparedStatement prepare(String query) throws SQLException {
+			PreparedStatement statement = statementCache.get(query);
+			if (statement == null || statement.isClosed()) {
+				statement = connection.prepareStatement(query);
+				statementCache.put(query, statement);
+			} else {
+				statement.clearParameters();
+			}
+			return statement;
+		}
+
+		boolean isUsable() {
+			try {
+				return !connection.isClosed() && connection.isValid(2);
+			} catch (SQLException e) {
+				return false;
+			}
+		}
+
+		void closeQuietly() {
+			Iterator<PreparedStatement> statements = statementCache.values().iterator();
+			while (statements.hasNext()) {
+				closeQuietly(statements.next());
+				statements.remove();
+			}
+			try {
+				connection.close();
+			} catch (SQLException e) {
+				System.out.println("Unable to close pooled connection: " + e.getMessage());
+			}
+		}
+
+		private static void closeQuietly(PreparedStatement statement) {
+			try {
+				statement.close();
+			} catch (SQLException e) {
+				System.out.println("Unable to close cached statement: " + e.getMessage());
+			}
+		}
+	}
+
+}
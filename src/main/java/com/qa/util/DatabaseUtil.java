@@ -1,94 +1,113 @@
 package com.qa.util;
 
 import java.sql.*;
+import java.time.Duration;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Properties;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * DatabaseUtility class to manage database connections and operations.
+ * Connections come from the shared {@link ConnectionPool}; queries take ?
+ * placeholders with their values passed as parameters and run through cached
+ * prepared statements.
  */
 public class DatabaseUtil {
 
-	private Connection connection; // JDBC Connection
-	private String databaseConfigPath = System.getProperty("user.dir")
-			+ "\\src\\test\\resources\\config\\database.properties";
-	Properties prop;
+	private final ConnectionPool pool; // Shared JDBC connection pool
+	private ConnectionPool.PooledConnection pooledConnection; // Borrowed lazily, returned on close()
+	private final ConfigManager config;
+	private final Deque<Savepoint> savepoints = new ArrayDeque<Savepoint>(); // Nested transactions
+	private boolean inTransaction;
 
 	/**
-	 * Constructor to initialize the database connection.
-	 * 
+	 * The scenario's own instance, bound to the thread running it the same way
+	 * DriverFactory binds the driver.
+	 */
+	private static final ThreadLocal<DatabaseUtil> tlDatabase = new ThreadLocal<DatabaseUtil>();
+
+	/**
+	 * Constructor to initialize the database connection pool.
+	 *
 	 * @throws SQLException if a database access error occurs.
 	 */
 	public DatabaseUtil() throws SQLException {
 
-		ConfigReader configReader = new ConfigReader();
-		prop = configReader.init_prop(databaseConfigPath);
-
-		String url = prop.getProperty("db.url");
-		String username = prop.getProperty("db.username");
-		String password = prop.getProperty("db.password");
-		this.connection = DriverManager.getConnection(url, username, password);
+		this.config = ConfigManager.get();
+		this.pool = ConnectionPool.getInstance(config);
 	}
 
 	/**
 	 * Get a single value from the database.
-	 * 
-	 * @param query The SQL query to execute.
+	 *
+	 * @param query  The SQL query to execute.
+	 * @param params Values for the ? placeholders in the query.
 	 * @return The value from the first row and first column.
-	 * @throws SQLException if a database access error occurs.
 	 */
-	public Object getSingleValue(String query) {
+	public Object getSingleValue(String query, Object... params) {
 		Object value = null;
+		ResultSet resultSet = null;
 		try {
-			Statement statement = connection.createStatement();
-			ResultSet resultSet = statement.executeQuery(query);
+			resultSet = execute(query, params);
 			if (resultSet.next()) {
 				value = resultSet.getObject(1); // Get the first column value
 			}
 		} catch (SQLException e) {
 			e.printStackTrace();
 			throw new RuntimeException("Failed to retrieve single value: " + e.getMessage());
+		} finally {
+			closeQuietly(resultSet);
 		}
 		return value;
 	}
 
 	/**
 	 * Get a single string value from the database.
-	 * 
-	 * @param query The SQL query to execute.
+	 *
+	 * @param query  The SQL query to execute.
+	 * @param params Values for the ? placeholders in the query.
 	 * @return The string value from the first row and first column.
-	 * @throws SQLException if a database access error occurs.
 	 */
-	public String getSingleString(String query) {
+	public String getSingleString(String query, Object... params) {
 		String value = null;
+		ResultSet resultSet = null;
 		try {
-			Statement statement = connection.createStatement();
-			ResultSet resultSet = statement.executeQuery(query);
+			resultSet = execute(query, params);
 			if (resultSet.next()) {
 				value = resultSet.getString(1); // Get the first column as string
 			}
 		} catch (SQLException e) {
 			e.printStackTrace();
 			throw new RuntimeException("Failed to retrieve single string: " + e.getMessage());
+		} finally {
+			closeQuietly(resultSet);
 		}
 		return value;
 	}
 
 	/**
 	 * Get a single row from the database as a Map.
-	 * 
-	 * @param query The SQL query to execute.
+	 *
+	 * @param query  The SQL query to execute.
+	 * @param params Values for the ? placeholders in the query.
 	 * @return A Map representing the first row with column names as keys.
-	 * @throws SQLException if a database access error occurs.
 	 */
-	public Map<String, Object> getSingleRow(String query) {
+	public Map<String, Object> getSingleRow(String query, Object... params) {
 		Map<String, Object> result = new HashMap<String, Object>();
+		ResultSet resultSet = null;
 		try {
-			Statement statement = connection.createStatement();
-			ResultSet resultSet = statement.executeQuery(query);
+			resultSet = execute(query, params);
 			ResultSetMetaData metaData = resultSet.getMetaData();
 			int columnCount = metaData.getColumnCount();
 
@@ -100,46 +119,50 @@ public class DatabaseUtil {
 		} catch (SQLException e) {
 			e.printStackTrace();
 			throw new RuntimeException("Failed to retrieve single row: " + e.getMessage());
+		} finally {
+			closeQuietly(resultSet);
 		}
 		return result;
 	}
 
 	/**
 	 * Get a list of values for a specific column.
-	 * 
+	 *
 	 * @param query      The SQL query to execute.
 	 * @param columnName The name of the column to retrieve values from.
+	 * @param params     Values for the ? placeholders in the query.
 	 * @return List of values from the specified column.
-	 * @throws SQLException if a database access error occurs.
 	 */
-	public List<Object> getColumnValues(String query, String columnName) {
+	public List<Object> getColumnValues(String query, String columnName, Object... params) {
 		List<Object> values = new ArrayList<Object>();
+		ResultSet resultSet = null;
 		try {
-			Statement statement = connection.createStatement();
-			ResultSet resultSet = statement.executeQuery(query);
+			resultSet = execute(query, params);
 			while (resultSet.next()) {
 				values.add(resultSet.getObject(columnName)); // Get values from the specified column
 			}
 		} catch (SQLException e) {
 			e.printStackTrace();
 			throw new RuntimeException("Failed to retrieve column values: " + e.getMessage());
+		} finally {
+			closeQuietly(resultSet);
 		}
 		return values;
 	}
 
 	/**
 	 * Execute a query and return results as a List of Maps.
-	 * 
-	 * @param query The SQL query to execute.
+	 *
+	 * @param query  The SQL query to execute.
+	 * @param params Values for the ? placeholders in the query.
 	 * @return List of maps, where each map represents a row with column names as
 	 *         keys.
-	 * @throws SQLException if a database access error occurs.
 	 */
-	public List<Map<String, Object>> executeQuery(String query) {
+	public List<Map<String, Object>> executeQuery(String query, Object... params) {
 		List<Map<String, Object>> results = new ArrayList<Map<String, Object>>();
+		ResultSet resultSet = null;
 		try {
-			Statement statement = connection.createStatement();
-			ResultSet resultSet = statement.executeQuery(query);
+			resultSet = execute(query, params);
 
 			ResultSetMetaData metaData = resultSet.getMetaData();
 			int columnCount = metaData.getColumnCount();
@@ -154,25 +177,471 @@ public class DatabaseUtil {
 		} catch (SQLException e) {
 			e.printStackTrace();
 			throw new RuntimeException("Failed to execute query: " + e.getMessage());
+		} finally {
+			closeQuietly(resultSet);
 		}
 		return results;
 	}
 
 	/**
-	 * Close the database connection.
-	 * 
+	 * Execute a query and return the rows in a compact, column oriented
+	 * {@link QueryResult}. Prefer this over {@link #executeQuery(String, Object...)}
+	 * for wide or large results.
+	 *
+	 * @param query  The SQL query to execute.
+	 * @param params Values for the ? placeholders in the query.
+	 * @return The result with one shared column dictionary and per-column values.
+	 */
+	public QueryResult executeQueryResult(String query, Object... params) {
+		ResultSet resultSet = null;
+		try {
+			resultSet = execute(query, params);
+			return QueryResult.from(resultSet);
+		} catch (SQLException e) {
+			e.printStackTrace();
+			throw new RuntimeException("Failed to execute query: " + e.getMessage());
+		} finally {
+			closeQuietly(resultSet);
+		}
+	}
+
+	/**
+	 * Stream the rows of a query one at a time instead of loading the whole
+	 * result into memory. Uses the db.fetchSize property as the JDBC fetch size.
+	 *
+	 * @param query  The SQL query to execute.
+	 * @param params Values for the ? placeholders in the query.
+	 * @return A lazily consumed stream of rows; it must be closed, preferably
+	 *         with try-with-resources.
+	 * @see #streamQuery(int, String, Object...)
+	 */
+	public Stream<Map<String, Object>> streamQuery(String query, Object... params) {
+		return streamQuery(config.getInt("db.fetchSize", 1000), query, params);
+	}
+
+	/**
+	 * Stream the rows of a query one at a time with the given JDBC fetch size.
+	 * Each row is read from the ResultSet only when the stream asks for it, so
+	 * memory stays flat however large the result is.
+	 * <p>
+	 * Drivers that only stream when told to are told: auto-commit is turned off
+	 * until the stream is closed (PostgreSQL only uses a cursor inside a
+	 * transaction), and MySQL without useCursorFetch=true on the url gets a
+	 * fetch size of Integer.MIN_VALUE, row by row streaming. Close the stream
+	 * before running other queries on this instance.
+	 *
+	 * @param fetchSize Rows fetched from the server per round trip.
+	 * @param query     The SQL query to execute.
+	 * @param params    Values for the ? placeholders in the query.
+	 * @return A lazily consumed stream of rows that closes its statement and
+	 *         ResultSet when closed.
+	 */
+	public Stream<Map<String, Object>> streamQuery(int fetchSize, String query, Object... params) {
+		PreparedStatement statement = null;
+		Connection connection = null;
+		boolean ownTransaction = false;
+		try {
+			connection = borrowedConnection().getConnection();
+			ownTransaction = connection.getAutoCommit();
+			if (ownTransaction) {
+				connection.setAutoCommit(false);
+			}
+			statement = connection.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			statement.setFetchSize(streamingFetchSize(connection, fetchSize));
+			bind(statement, params);
+			final ResultSet resultSet = statement.executeQuery();
+			final PreparedStatement openStatement = statement;
+			final Connection openConnection = connection;
+			final boolean restoreAutoCommit = ownTransaction;
+
+			ResultSetMetaData metaData = resultSet.getMetaData();
+			final String[] columnNames = new String[metaData.getColumnCount()];
+			for (int i = 0; i < columnNames.length; i++) {
+				columnNames[i] = metaData.getColumnName(i + 1);
+			}
+
+			Spliterator<Map<String, Object>> rows = new Spliterators.AbstractSpliterator<Map<String, Object>>(
+					Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+
+				@Override
+				public boolean tryAdvance(Consumer<? super Map<String, Object>> action) {
+					try {
+						if (!resultSet.next()) {
+							return false;
+						}
+						Map<String, Object> row = new HashMap<String, Object>(columnNames.length * 2);
+						for (int i = 0; i < columnNames.length; i++) {
+							row.put(columnNames[i], resultSet.getObject(i + 1));
+						}
+						action.accept(row);
+						return true;
+					} catch (SQLException e) {
+						throw new RuntimeException("Failed to read streamed row: " + e.getMessage(), e);
+					}
+				}
+			};
+
+			return StreamSupport.stream(rows, false).onClose(() -> {
+				closeQuietly(resultSet);
+				closeQuietly(openStatement);
+				if (restoreAutoCommit) {
+					restoreAutoCommit(openConnection);
+				}
+			});
+		} catch (SQLException e) {
+			closeQuietly(statement);
+			if (ownTransaction) {
+				restoreAutoCommit(connection);
+			}
+			e.printStackTrace();
+			throw new RuntimeException("Failed to stream query: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * MySQL's Connector/J reads the whole result at executeQuery unless the url
+	 * asks for a server cursor or the fetch size is Integer.MIN_VALUE.
+	 */
+	private static int streamingFetchSize(Connection connection, int fetchSize) throws SQLException {
+		DatabaseMetaData metaData = connection.getMetaData();
+		if ("MySQL".equalsIgnoreCase(metaData.getDatabaseProductName())
+				&& !String.valueOf(metaData.getURL()).contains("useCursorFetch=true")) {
+			return Integer.MIN_VALUE;
+		}
+		return fetchSize;
+	}
+
+	private static void restoreAutoCommit(Connection connection) {
+		try {
+			connection.setAutoCommit(true); // ends the read-only transaction the stream ran in
+		} catch (SQLException e) {
+			System.out.println("Unable to restore auto-commit after streaming: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Process every row of a query with the given consumer, one row at a time,
+	 * closing all JDBC resources afterwards.
+	 *
+	 * @param query    The SQL query to execute.
+	 * @param consumer Called once per row; the row may be discarded afterwards.
+	 * @param params   Values for the ? placeholders in the query.
+	 */
+	public void forEachRow(String query, Consumer<Map<String, Object>> consumer, Object... params) {
+		try (Stream<Map<String, Object>> rows = streamQuery(query, params)) {
+			rows.forEach(consumer);
+		}
+	}
+
+	/**
+	 * Get a view of this utility whose single value and single row lookups go
+	 * through the JVM-wide {@link QueryCache}. Caching only happens when
+	 * db.cache.enabled is true; otherwise the view queries the database
+	 * directly.
+	 *
+	 * @param ttl  How long a cached result stays valid.
+	 * @param tags Tags that {@link #invalidateCache(String...)} can evict the
+	 *             results by.
+	 * @return a view sharing this instance's connection
+	 */
+	public CachedQueries cached(Duration ttl, String... tags) {
+		return new CachedQueries(ttl.toNanos(), new HashSet<String>(Arrays.asList(tags)));
+	}
+
+	/**
+	 * Evict cached results carrying any of the given tags, typically after a
+	 * step that writes data those results depend on.
+	 *
+	 * @param tags Tags used when the results were cached.
+	 * @return number of cached results evicted
+	 */
+	public int invalidateCache(String... tags) {
+		QueryCache cache = QueryCache.sharedIfCreated();
+		return cache == null ? 0 : cache.invalidate(tags);
+	}
+
+	/**
+	 * Execute one insert or update statement for many rows with JDBC batching.
+	 * Without an open transaction the whole batch runs in its own transaction,
+	 * so it is committed once instead of once per row.
+	 *
+	 * @param sql       The SQL statement with ? placeholders.
+	 * @param rows      Values for the placeholders, one array per row; read
+	 *                  lazily, so it can stream from a file.
+	 * @param batchSize Rows sent to the database per round trip.
+	 * @return number of rows executed
+	 */
+	public long executeBatch(String sql, Iterable<Object[]> rows, int batchSize) {
+		try {
+			PreparedStatement statement = borrowedConnection().prepare(sql);
+			Connection connection = pooledConnection.getConnection();
+			boolean ownTransaction = connection.getAutoCommit();
+			if (ownTransaction) {
+				connection.setAutoCommit(false);
+			}
+			try {
+				long count = 0;
+				int pending = 0;
+				for (Object[] row : rows) {
+					bind(statement, row);
+					statement.addBatch();
+					count++;
+					if (++pending == batchSize) {
+						statement.executeBatch();
+						pending = 0;
+					}
+				}
+				if (pending > 0) {
+					statement.executeBatch();
+				}
+				if (ownTransaction) {
+					connection.commit();
+				}
+				return count;
+			} catch (SQLException | RuntimeException e) {
+				clearBatchQuietly(statement);
+				if (ownTransaction) {
+					connection.rollback();
+				}
+				throw e;
+			} finally {
+				if (ownTransaction) {
+					connection.setAutoCommit(true);
+				}
+			}
+		} catch (SQLException e) {
+			e.printStackTrace();
+			throw new RuntimeException("Failed to execute batch: " + e.getMessage());
+		}
+	}
+
+	// ================== Transactions ==================
+
+	/**
+	 * Start a transaction on this instance's connection. When a transaction is
+	 * already open a savepoint is set instead, so the inner unit of work can be
+	 * rolled back on its own.
+	 *
 	 * @throws SQLException if a database access error occurs.
 	 */
+	public void beginTransaction() throws SQLException {
+		Connection connection = borrowedConnection().getConnection();
+		if (inTransaction) {
+			savepoints.push(connection.setSavepoint());
+			return;
+		}
+		connection.setAutoCommit(false);
+		inTransaction = true;
+	}
+
+	/**
+	 * Undo the innermost transaction or savepoint started with
+	 * {@link #beginTransaction()}.
+	 *
+	 * @throws SQLException if a database access error occurs.
+	 */
+	public void rollback() throws SQLException {
+		if (!inTransaction) {
+			return;
+		}
+		Connection connection = pooledConnection.getConnection();
+		if (!savepoints.isEmpty()) {
+			connection.rollback(savepoints.pop());
+			return;
+		}
+		inTransaction = false;
+		try {
+			connection.rollback();
+		} finally {
+			connection.setAutoCommit(true);
+		}
+	}
+
+	/**
+	 * Commit the innermost transaction started with {@link #beginTransaction()};
+	 * for a savepoint its changes become part of the enclosing transaction.
+	 *
+	 * @throws SQLException if a database access error occurs.
+	 */
+	public void commit() throws SQLException {
+		if (!inTransaction) {
+			return;
+		}
+		Connection connection = pooledConnection.getConnection();
+		if (!savepoints.isEmpty()) {
+			connection.releaseSavepoint(savepoints.pop());
+			return;
+		}
+		inTransaction = false;
+		connection.commit();
+		connection.setAutoCommit(true);
+	}
+
+	public boolean isInTransaction() {
+		return inTransaction;
+	}
+
+	/**
+	 * Get the DatabaseUtil of the scenario running on this thread, created on
+	 * first use with a transaction open. Data the scenario writes through it is
+	 * rolled back by {@link #endScenario()}. Uncommitted rows are only visible on
+	 * this connection, not to the application under test.
+	 *
+	 * @return the scenario's DatabaseUtil
+	 * @throws SQLException if no connection can be obtained
+	 */
+	public static DatabaseUtil forScenario() throws SQLException {
+		DatabaseUtil database = tlDatabase.get();
+		if (database == null) {
+			database = new DatabaseUtil();
+			database.beginTransaction();
+			tlDatabase.set(database);
+		}
+		return database;
+	}
+
+	/**
+	 * Roll back everything the scenario on this thread wrote through
+	 * {@link #forScenario()} and return its connection to the pool.
+	 */
+	public static void endScenario() {
+		DatabaseUtil database = tlDatabase.get();
+		if (database == null) {
+			return;
+		}
+		tlDatabase.remove();
+		try {
+			while (database.isInTransaction()) {
+				database.rollback();
+			}
+		} catch (SQLException e) {
+			System.out.println("Unable to roll back scenario data: " + e.getMessage());
+		} finally {
+			database.close();
+		}
+	}
+
+	/**
+	 * @return the shared pool, for its active/idle/waiting gauges
+	 */
+	public ConnectionPool getPool() {
+		return pool;
+	}
+
+	/**
+	 * Return the borrowed connection to the pool. The pool itself stays open for
+	 * other users.
+	 */
 	public void close() {
-		if (connection != null) {
+		savepoints.clear();
+		inTransaction = false; // the pool rolls back an open transaction on release
+		if (pooledConnection != null) {
+			pool.release(pooledConnection);
+			pooledConnection = null;
+			System.out.println("Database connection returned to pool.");
+		}
+	}
+
+	/**
+	 * Cached reference-data lookups, obtained from
+	 * {@link DatabaseUtil#cached(Duration, String...)}.
+	 */
+	public class CachedQueries {
+
+		private final long ttlNanos;
+		private final Set<String> tags;
+
+		private CachedQueries(long ttlNanos, Set<String> tags) {
+			this.ttlNanos = ttlNanos;
+			this.tags = tags;
+		}
+
+		public Object getSingleValue(final String query, final Object... params) {
+			if (!isCacheEnabled()) {
+				return DatabaseUtil.this.getSingleValue(query, params);
+			}
+			return cache().get("value", query, params, ttlNanos, tags,
+					() -> DatabaseUtil.this.getSingleValue(query, params));
+		}
+
+		public String getSingleString(final String query, final Object... params) {
+			if (!isCacheEnabled()) {
+				return DatabaseUtil.this.getSingleString(query, params);
+			}
+			return cache().get("string", query, params, ttlNanos, tags,
+					() -> DatabaseUtil.this.getSingleString(query, params));
+		}
+
+		/**
+		 * @return a copy of the cached row, safe to modify
+		 */
+		public Map<String, Object> getSingleRow(final String query, final Object... params) {
+			if (!isCacheEnabled()) {
+				return DatabaseUtil.this.getSingleRow(query, params);
+			}
+			Map<String, Object> row = cache().get("row", query, params, ttlNanos, tags,
+					() -> DatabaseUtil.this.getSingleRow(query, params));
+			return new HashMap<String, Object>(row);
+		}
+	}
+
+	private boolean isCacheEnabled() {
+		return config.getBoolean("db.cache.enabled", false);
+	}
+
+	private QueryCache cache() {
+		return QueryCache.shared(config.getInt("db.cache.maxEntries", 1000));
+	}
+
+	/**
+	 * Get the connection borrowed by this instance, borrowing one on first use.
+	 */
+	private ConnectionPool.PooledConnection borrowedConnection() throws SQLException {
+		if (pooledConnection == null) {
+			pooledConnection = pool.borrow();
+		}
+		return pooledConnection;
+	}
+
+	/**
+	 * Run a query through the connection's cached prepared statement. The caller
+	 * must close the returned ResultSet; the statement itself stays cached.
+	 */
+	private ResultSet execute(String query, Object... params) throws SQLException {
+		PreparedStatement statement = borrowedConnection().prepare(query);
+		bind(statement, params);
+		return statement.executeQuery();
+	}
+
+	private static void bind(PreparedStatement statement, Object... params) throws SQLException {
+		if (params == null) {
+			return;
+		}
+		for (int i = 0; i < params.length; i++) {
+			statement.setObject(i + 1, params[i]);
+		}
+	}
+
+	/**
+	 * Drop rows queued on a cached statement by a failed batch, so its next user
+	 * does not send them.
+	 */
+	private static void clearBatchQuietly(PreparedStatement statement) {
+		if (statement != null) {
 			try {
-				if (!connection.isClosed()) {
-					connection.close();
-					System.out.println("Database connection closed.");
-				}
+				statement.clearBatch();
 			} catch (SQLException e) {
-				e.printStackTrace();
-				throw new RuntimeException("Failed to close the database connection: " + e.getMessage());
+				System.out.println("Unable to clear JDBC batch: " + e.getMessage());
+			}
+		}
+	}
+
+	private static void closeQuietly(AutoCloseable closeable) {
+		if (closeable != null) {
+			try {
+				closeable.close();
+			} catch (Exception e) {
+				System.out.println("Unable to close JDBC resource: " + e.getMessage());
 			}
 		}
 	}
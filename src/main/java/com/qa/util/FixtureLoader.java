@@ -0,0 +1,347 @@
+package com.qa.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.regex.Pattern;
+
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+
+/**
+ * Seeds test data from dataset files with batched inserts through a
+ * {@link DatabaseUtil}, usually the scenario's own from
+ * {@link DatabaseUtil#forScenario()} so the data is rolled back when the
+ * scenario ends.
+ * <ul>
+ * <li>CSV: the file name is the table, the header row the columns. An empty
+ * unquoted field is NULL, a quoted empty field an empty string. Rows are
+ * streamed, so large files are not held in memory.</li>
+ * <li>YAML: a map of table names to lists of rows, each row a map of column to
+ * value. Tables are loaded in file order.</li>
+ * </ul>
+ * Every load logs its rows per second.
+ */
+public class FixtureLoader {
+
+	private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*(\\.[A-Za-z_][A-Za-z0-9_]*)?");
+
+	private final DatabaseUtil database;
+	private final int batchSize;
+	private final String directory;
+
+	/**
+	 * @param database where the data is inserted; with fixtures.batchSize and
+	 *                 fixtures.dir from the configuration
+	 */
+	public FixtureLoader(DatabaseUtil database) {
+		this(database, ConfigManager.get().getInt("fixtures.batchSize", 500),
+				ConfigManager.get().getString("fixtures.dir", "fixtures"));
+	}
+
+	/**
+	 * @param database  where the data is inserted
+	 * @param batchSize rows per JDBC batch
+	 * @param directory classpath directory dataset names are resolved in
+	 */
+	public FixtureLoader(DatabaseUtil database, int batchSize, String directory) {
+		this.database = database;
+		this.batchSize = Math.max(1, batchSize);
+		this.directory = directory;
+	}
+
+	/**
+	 * Load a dataset by file path, or by name from the fixtures directory on
+	 * the classpath.
+	 *
+	 * @param dataset e.g. customers.csv or accounts.yml
+	 * @return number of rows inserted
+	 */
+	public long load(String dataset) {
+		String fileName = dataset.replace('\\', '/').substring(dataset.replace('\\', '/').lastIndexOf('/') + 1);
+		try (Reader reader = open(dataset)) {
+			String lower = fileName.toLowerCase();
+			if (lower.endsWith(".csv")) {
+				return loadCsv(fileName.substring(0, fileName.length() - 4), reader);
+			}
+			if (lower.endsWith(".yml") || lower.endsWith(".yaml")) {
+				return loadYaml(reader);
+			}
+			throw new IllegalArgumentException("Unsupported dataset format, expected .csv, .yml or .yaml: " + dataset);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to read dataset " + dataset, e);
+		}
+	}
+
+	/**
+	 * Insert the rows of a CSV document into a table.
+	 *
+	 * @param table  the table name
+	 * @param reader the CSV document, with a header row of column names
+	 * @return number of rows inserted
+	 */
+	public long loadCsv(String table, Reader reader) throws IOException {
+		final CsvReader csv = new CsvReader(reader);
+		List<String> columns = csv.next();
+		if (columns == null) {
+			return 0;
+		}
+		if (columns.contains(null)) {
+			throw new IllegalArgumentException("The CSV header of " + table + " has an empty column name");
+		}
+		columns.set(0, columns.get(0).replace("\uFEFF", "")); // byte order mark written by spreadsheets
+		final int width = columns.size();
+		long start = System.nanoTime();
+		long rows = database.executeBatch(insertSql(table, columns), new Iterable<Object[]>() {
+
+			@Override
+			public Iterator<Object[]> iterator() {
+				return new RowIterator(csv, width);
+			}
+		}, batchSize);
+		report(table, rows, System.nanoTime() - start);
+		return rows;
+	}
+
+	/**
+	 * Insert the rows of a YAML document of table names to row lists.
+	 *
+	 * @param reader the YAML document
+	 * @return number of rows inserted
+	 */
+	@SuppressWarnings("unchecked")
+	public long loadYaml(Reader reader) {
+		Object document = new Yaml(new SafeConstructor(new LoaderOptions())).load(reader);
+		if (document == null) {
+			return 0;
+		}
+		if (!(document instanceof Map)) {
+			throw new IllegalArgumentException("A YAML dataset must map table names to lists of rows");
+		}
+		long total = 0;
+		for (Map.Entry<String, Object> table : ((Map<String, Object>) document).entrySet()) {
+			if (!(table.getValue() instanceof List)) {
+				throw new IllegalArgumentException("Rows of table " + table.getKey() + " must be a list");
+			}
+			total += insertRows(table.getKey(), (List<Map<String, Object>>) table.getValue());
+		}
+		return total;
+	}
+
+	/**
+	 * Rows with the same columns as the row before them share a statement and
+	 * a batch; a row with other columns starts a new one.
+	 */
+	private long insertRows(String table, List<Map<String, Object>> tableRows) {
+		long start = System.nanoTime();
+		long total = 0;
+		List<String> columns = null;
+		List<Object[]> batch = new ArrayList<Object[]>();
+		for (Map<String, Object> row : tableRows) {
+			List<String> rowColumns = new ArrayList<String>(row.keySet());
+			if (columns != null && !columns.equals(rowColumns)) {
+				total += database.executeBatch(insertSql(table, columns), batch, batchSize);
+				batch = new ArrayList<Object[]>();
+			}
+			columns = rowColumns;
+			batch.add(row.values().toArray());
+		}
+		if (columns != null) {
+			total += database.executeBatch(insertSql(table, columns), batch, batchSize);
+		}
+		report(table, total, System.nanoTime() - start);
+		return total;
+	}
+
+	private void report(String table, long rows, long nanos) {
+		double seconds = Math.max(nanos, 1) / 1e9;
+		System.out.println(String.format("Loaded %d rows into %s in %.0f ms (%.0f rows/s, batches of %d)", rows, table,
+				seconds * 1000, rows / seconds, batchSize));
+	}
+
+	private Reader open(String dataset) throws IOException {
+		Path file = Paths.get(dataset);
+		if (Files.isRegularFile(file)) {
+			return Files.newBufferedReader(file, StandardCharsets.UTF_8);
+		}
+		ClassLoader loader = Thread.currentThread().getContextClassLoader();
+		InputStream resource = loader.getResourceAsStream(directory + "/" + dataset);
+		if (resource == null) {
+			resource = loader.getResourceAsStream(dataset);
+		}
+		if (resource == null) {
+			throw new IllegalArgumentException("Dataset not found as a file or in " + directory + "/ on the classpath: "
+					+ dataset);
+		}
+		return new BufferedReader(new InputStreamReader(resource, StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Table and column names come from the dataset and end up in SQL, so only
+	 * plain (optionally schema qualified) identifiers are accepted.
+	 */
+	private static String insertSql(String table, List<String> columns) {
+		StringBuilder sql = new StringBuilder("INSERT INTO ").append(identifier(table)).append(" (");
+		for (int i = 0; i < columns.size(); i++) {
+			sql.append(i == 0 ? "" : ", ").append(identifier(columns.get(i).trim()));
+		}
+		sql.append(") VALUES (").append(String.join(", ", Collections.nCopies(columns.size(), "?"))).append(')');
+		return sql.toString();
+	}
+
+	/**
+	 * Check a table or column name before it is put into SQL.
+	 *
+	 * @param name a plain or schema qualified identifier
+	 * @return the name
+	 * @throws IllegalArgumentException if it is anything else
+	 */
+	public static String identifier(String name) {
+		if (!IDENTIFIER.matcher(name).matches()) {
+			throw new IllegalArgumentException("Not a valid table or column name: " + name);
+		}
+		return name;
+	}
+
+	/**
+	 * Streams the data rows of a CSV document as bind values.
+	 */
+	private static final class RowIterator implements Iterator<Object[]> {
+
+		private final CsvReader csv;
+		private final int width;
+		private int line = 1;
+		private List<String> next;
+
+		RowIterator(CsvReader csv, int width) {
+			this.csv = csv;
+			this.width = width;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (next == null) {
+				try {
+					next = csv.next();
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+			return next != null;
+		}
+
+		@Override
+		public Object[] next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			line++;
+			if (next.size() != width) {
+				throw new IllegalArgumentException(
+						"CSV record " + line + " has " + next.size() + " fields, the header has " + width);
+			}
+			Object[] values = next.toArray();
+			next = null;
+			return values;
+		}
+	}
+
+	/**
+	 * Minimal RFC 4180 reader: comma separated, fields optionally in double
+	 * quotes with "" for a quote, quoted fields may span lines. Blank lines are
+	 * skipped.
+	 */
+	static final class CsvReader {
+
+		private final Reader reader;
+		private int peeked = -2;
+
+		CsvReader(Reader reader) {
+			this.reader = reader;
+		}
+
+		/**
+		 * @return the fields of the next record, null for an empty unquoted field,
+		 *         or null at the end of the document
+		 */
+		List<String> next() throws IOException {
+			List<String> fields = new ArrayList<String>();
+			StringBuilder field = new StringBuilder();
+			boolean quoted = false;
+			boolean wasQuoted = false;
+			int c;
+			while ((c = read()) != -1) {
+				if (quoted) {
+					if (c == '"') {
+						if (peek() == '"') {
+							read();
+							field.append('"');
+						} else {
+							quoted = false;
+						}
+					} else {
+						field.append((char) c);
+					}
+				} else if (c == '"' && field.length() == 0) {
+					quoted = true;
+					wasQuoted = true;
+				} else if (c == ',') {
+					fields.add(value(field, wasQuoted));
+					field.setLength(0);
+					wasQuoted = false;
+				} else if (c == '\r' || c == '\n') {
+					if (c == '\r' && peek() == '\n') {
+						read();
+					}
+					if (fields.isEmpty() && field.length() == 0 && !wasQuoted) {
+						continue; // blank line
+					}
+					fields.add(value(field, wasQuoted));
+					return fields;
+				} else {
+					field.append((char) c);
+				}
+			}
+			if (fields.isEmpty() && field.length() == 0 && !wasQuoted) {
+				return null;
+			}
+			fields.add(value(field, wasQuoted));
+			return fields;
+		}
+
+		private static String value(StringBuilder field, boolean wasQuoted) {
+			return field.length() == 0 && !wasQuoted ? null : field.toString();
+		}
+
+		private int read() throws IOException {
+			if (peeked != -2) {
+				int c = peeked;
+				peeked = -2;
+				return c;
+			}
+			return reader.read();
+		}
+
+		private int peek() throws IOException {
+			if (peeked == -2) {
+				peeked = reader.read();
+			}
+			return peeked;
+		}
+	}
+
+}
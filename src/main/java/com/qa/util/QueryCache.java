@@ -0,0 +1,216 @@
+package com.qa.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU cache of query results shared by every scenario in the JVM.
+ * Entries are keyed by normalized SQL plus parameters, expire after a per-query
+ * TTL and can be evicted by tag when a step changes the underlying data.
+ */
+public class QueryCache {
+
+	private static volatile QueryCache shared;
+
+	private final Map<Key, CachedResult> entries;
+
+	private long hits;
+	private long misses;
+	private long evictions;
+	private long savedNanos;
+	/** Bumped by every invalidation, so a load that raced one is not cached. */
+	private long generation;
+
+	/**
+	 * @param maxEntries number of results kept before the least recently used
+	 *                   one is evicted
+	 */
+	public QueryCache(final int maxEntries) {
+		this.entries = new LinkedHashMap<Key, CachedResult>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, CachedResult> eldest) {
+				if (size() > maxEntries) {
+					evictions++;
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * @param maxEntries size used if the shared cache does not exist yet
+	 * @return the cache shared by every {@link DatabaseUtil} in this JVM
+	 */
+	public static QueryCache shared(int maxEntries) {
+		if (shared == null) {
+			synchronized (QueryCache.class) {
+				if (shared == null) {
+					shared = new QueryCache(maxEntries);
+				}
+			}
+		}
+		return shared;
+	}
+
+	/**
+	 * @return the shared cache, or null if no query has been cached in this JVM
+	 */
+	public static QueryCache sharedIfCreated() {
+		return shared;
+	}
+
+	/**
+	 * Return the cached value for the query, or load it and cache it for the
+	 * given time.
+	 *
+	 * @param kind     distinguishes results of different shapes for the same SQL
+	 * @param query    the SQL query
+	 * @param params   the query parameters
+	 * @param ttlNanos time the loaded value stays valid
+	 * @param tags     tags the entry can later be invalidated by
+	 * @param loader   runs the query on a miss
+	 * @return the cached or freshly loaded value
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T get(String kind, String query, Object[] params, long ttlNanos, Set<String> tags,
+			Supplier<T> loader) {
+		Key key = new Key(kind, normalize(query), params);
+		long now = System.nanoTime();
+		long loadGeneration;
+
+		synchronized (this) {
+			CachedResult entry = entries.get(key);
+			if (entry != null && now - entry.expiresAt < 0) {
+				hits++;
+				savedNanos += entry.loadNanos;
+				return (T) entry.value;
+			}
+			if (entry != null) {
+				entries.remove(key);
+			}
+			misses++;
+			loadGeneration = generation;
+		}
+
+		long start = System.nanoTime();
+		T value = loader.get();
+		long loadNanos = System.nanoTime() - start;
+
+		synchronized (this) {
+			// the value may predate data changed by a step that invalidated meanwhile
+			if (generation == loadGeneration) {
+				entries.put(key, new CachedResult(value, start + ttlNanos, loadNanos, tags));
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Evict every entry carrying at least one of the given tags.
+	 *
+	 * @param tags tags used when the entries were cached
+	 * @return number of entries evicted
+	 */
+	public synchronized int invalidate(String... tags) {
+		generation++;
+		Set<String> evict = new HashSet<String>(Arrays.asList(tags));
+		int removed = 0;
+		Iterator<CachedResult> iterator = entries.values().iterator();
+		while (iterator.hasNext()) {
+			if (!Collections.disjoint(iterator.next().tags, evict)) {
+				iterator.remove();
+				removed++;
+			}
+		}
+		return removed;
+	}
+
+	public synchronized void clear() {
+		generation++;
+		entries.clear();
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	public synchronized double getHitRatio() {
+		long total = hits + misses;
+		return total == 0 ? 0.0 : (double) hits / total;
+	}
+
+	/**
+	 * @return one line summary of hit ratio and database time saved
+	 */
+	public synchronized String getStats() {
+		return String.format("Query cache: %d hits, %d misses (hit ratio %.1f%%), %d evictions, %d ms saved", hits,
+				misses, getHitRatio() * 100, evictions, TimeUnit.NANOSECONDS.toMillis(savedNanos));
+	}
+
+	/**
+	 * Normalize SQL so that formatting differences share one entry: whitespace
+	 * runs are collapsed and a trailing semicolon is dropped.
+	 */
+	static String normalize(String query) {
+		String normalized = query.trim().replaceAll("\\s+", " ");
+		while (normalized.endsWith(";")) {
+			normalized = normalized.substring(0, normalized.length() - 1).trim();
+		}
+		return normalized;
+	}
+
+	private static final class Key {
+
+		private final String kind;
+		private final String query;
+		private final List<Object> params;
+
+		Key(String kind, String query, Object[] params) {
+			this.kind = kind;
+			this.query = query;
+			this.params = params == null ? Collections.emptyList() : Arrays.asList(params.clone());
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof Key)) {
+				return false;
+			}
+			Key key = (Key) other;
+			return kind.equals(key.kind) && query.equals(key.query) && params.equals(key.params);
+		}
+
+		@Override
+		public int hashCode() {
+			return (kind.hashCode() * 31 + query.hashCode()) * 31 + params.hashCode();
+		}
+	}
+
+	private static final class CachedResult {
+
+		private final Object value;
+		private final long expiresAt;
+		private final long loadNanos;
+		private final Set<String> tags;
+
+		CachedResult(Object value, long expiresAt, long loadNanos, Set<String> tags) {
+			this.value = value;
+			this.expiresAt = expiresAt;
+			this.loadNanos = loadNanos;
+			this.tags = tags;
+		}
+	}
+
+}
@@ -0,0 +1,405 @@
+package com.qa.util;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Compact, column oriented query result. Column names are stored once in a
+ * shared name-to-index dictionary and values are kept per column, using
+ * primitive arrays for integral, floating point and boolean columns.
+ * <p>
+ * Integral columns come back as {@link Long}, floating point columns as
+ * {@link Double}; every other type is kept as returned by
+ * {@link ResultSet#getObject(int)}.
+ */
+public class QueryResult implements Iterable<QueryResult.Row> {
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	private final List<String> columnNames;
+	private final Map<String, Integer> columnIndex;
+	private final Column[] columns;
+	private int rowCount;
+
+	private QueryResult(String[] names, Column[] columns) {
+		this.columnNames = Collections.unmodifiableList(Arrays.asList(names));
+		this.columnIndex = new HashMap<String, Integer>(names.length * 2);
+		for (int i = 0; i < names.length; i++) {
+			columnIndex.putIfAbsent(names[i], i);
+			columnIndex.putIfAbsent(names[i].toUpperCase(), i);
+		}
+		this.columns = columns;
+	}
+
+	/**
+	 * Read every remaining row of the ResultSet. The ResultSet is not closed.
+	 *
+	 * @param resultSet an open ResultSet positioned before the first row
+	 * @return the columnar result
+	 * @throws SQLException if reading fails
+	 */
+	public static QueryResult from(ResultSet resultSet) throws SQLException {
+		ResultSetMetaData metaData = resultSet.getMetaData();
+		int columnCount = metaData.getColumnCount();
+		String[] names = new String[columnCount];
+		Column[] columns = new Column[columnCount];
+		for (int i = 0; i < columnCount; i++) {
+			names[i] = metaData.getColumnName(i + 1);
+			columns[i] = columnFor(metaData.getColumnType(i + 1), metaData.getPrecision(i + 1));
+		}
+
+		QueryResult result = new QueryResult(names, columns);
+		while (resultSet.next()) {
+			for (int i = 0; i < columnCount; i++) {
+				columns[i].read(resultSet, i + 1, result.rowCount);
+			}
+			result.rowCount++;
+		}
+		return result;
+	}
+
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	public int getColumnCount() {
+		return columns.length;
+	}
+
+	public List<String> getColumnNames() {
+		return columnNames;
+	}
+
+	/**
+	 * @param columnName column label, matched exactly or upper-cased
+	 * @return the 0-based column index
+	 * @throws IllegalArgumentException if there is no such column
+	 */
+	public int indexOf(String columnName) {
+		Integer index = columnIndex.get(columnName);
+		if (index == null) {
+			index = columnIndex.get(columnName.toUpperCase());
+		}
+		if (index == null) {
+			throw new IllegalArgumentException("No column named " + columnName + " in " + columnNames);
+		}
+		return index;
+	}
+
+	public Object get(int row, int column) {
+		checkRow(row);
+		return columns[column].get(row);
+	}
+
+	public Object get(int row, String columnName) {
+		return get(row, indexOf(columnName));
+	}
+
+	public boolean isNull(int row, int column) {
+		checkRow(row);
+		return columns[column].isNull(row);
+	}
+
+	public boolean isNull(int row, String columnName) {
+		return isNull(row, indexOf(columnName));
+	}
+
+	/**
+	 * Read a numeric value without boxing when the column is stored as a
+	 * primitive. SQL NULL reads as 0.
+	 */
+	public long getLong(int row, int column) {
+		checkRow(row);
+		Column col = columns[column];
+		if (col instanceof LongColumn) {
+			return ((LongColumn) col).values[row];
+		}
+		Object value = col.get(row);
+		return value == null ? 0L : ((Number) value).longValue();
+	}
+
+	public long getLong(int row, String columnName) {
+		return getLong(row, indexOf(columnName));
+	}
+
+	/**
+	 * Read a numeric value without boxing when the column is stored as a
+	 * primitive. SQL NULL reads as 0.
+	 */
+	public double getDouble(int row, int column) {
+		checkRow(row);
+		Column col = columns[column];
+		if (col instanceof DoubleColumn) {
+			return ((DoubleColumn) col).values[row];
+		}
+		if (col instanceof LongColumn) {
+			return ((LongColumn) col).values[row];
+		}
+		Object value = col.get(row);
+		return value == null ? 0.0 : ((Number) value).doubleValue();
+	}
+
+	public double getDouble(int row, String columnName) {
+		return getDouble(row, indexOf(columnName));
+	}
+
+	/**
+	 * Read a boolean value without boxing when the column is stored as a
+	 * primitive. SQL NULL reads as false.
+	 */
+	public boolean getBoolean(int row, int column) {
+		checkRow(row);
+		Column col = columns[column];
+		if (col instanceof BooleanColumn) {
+			return ((BooleanColumn) col).values.get(row);
+		}
+		Object value = col.get(row);
+		return value instanceof Boolean ? (Boolean) value : value != null && Boolean.parseBoolean(value.toString());
+	}
+
+	public boolean getBoolean(int row, String columnName) {
+		return getBoolean(row, indexOf(columnName));
+	}
+
+	public String getString(int row, int column) {
+		Object value = get(row, column);
+		return value == null ? null : value.toString();
+	}
+
+	public String getString(int row, String columnName) {
+		return getString(row, indexOf(columnName));
+	}
+
+	/**
+	 * @return a lightweight view of the row; no values are copied
+	 */
+	public Row row(int row) {
+		checkRow(row);
+		return new Row(row);
+	}
+
+	@Override
+	public Iterator<Row> iterator() {
+		return new Iterator<Row>() {
+
+			private int next;
+
+			@Override
+			public boolean hasNext() {
+				return next < rowCount;
+			}
+
+			@Override
+			public Row next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return new Row(next++);
+			}
+		};
+	}
+
+	/**
+	 * Copy the result into the List of Maps shape returned by
+	 * {@link DatabaseUtil#executeQuery(String, Object...)}.
+	 */
+	public List<Map<String, Object>> toMaps() {
+		List<Map<String, Object>> rows = new ArrayList<Map<String, Object>>(rowCount);
+		for (Row row : this) {
+			rows.add(row.toMap());
+		}
+		return rows;
+	}
+
+	private void checkRow(int row) {
+		if (row < 0 || row >= rowCount) {
+			throw new IndexOutOfBoundsException("Row " + row + " out of range, result has " + rowCount + " rows");
+		}
+	}
+
+	/**
+	 * BIT is a boolean only with a precision of 1; MySQL BIT(n) columns wider
+	 * than that hold bit fields and are kept as the driver returns them.
+	 */
+	private static Column columnFor(int sqlType, int precision) {
+		switch (sqlType) {
+		case Types.TINYINT:
+		case Types.SMALLINT:
+		case Types.INTEGER:
+		case Types.BIGINT:
+			return new LongColumn();
+		case Types.REAL:
+		case Types.FLOAT:
+		case Types.DOUBLE:
+			return new DoubleColumn();
+		case Types.BIT:
+			return precision == 1 ? new BooleanColumn() : new ObjectColumn();
+		case Types.BOOLEAN:
+			return new BooleanColumn();
+		default:
+			return new ObjectColumn();
+		}
+	}
+
+	/**
+	 * A view of one row of the result.
+	 */
+	public class Row {
+
+		private final int row;
+
+		private Row(int row) {
+			this.row = row;
+		}
+
+		public int getIndex() {
+			return row;
+		}
+
+		public Object get(int column) {
+			return QueryResult.this.get(row, column);
+		}
+
+		public Object get(String columnName) {
+			return QueryResult.this.get(row, columnName);
+		}
+
+		public long getLong(String columnName) {
+			return QueryResult.this.getLong(row, columnName);
+		}
+
+		public double getDouble(String columnName) {
+			return QueryResult.this.getDouble(row, columnName);
+		}
+
+		public boolean getBoolean(String columnName) {
+			return QueryResult.this.getBoolean(row, columnName);
+		}
+
+		public String getString(String columnName) {
+			return QueryResult.this.getString(row, columnName);
+		}
+
+		public Map<String, Object> toMap() {
+			Map<String, Object> map = new LinkedHashMap<String, Object>(columns.length * 2);
+			for (int i = 0; i < columns.length; i++) {
+				map.put(columnNames.get(i), columns[i].get(row));
+			}
+			return map;
+		}
+
+		@Override
+		public String toString() {
+			return toMap().toString();
+		}
+	}
+
+	private abstract static class Column {
+
+		final BitSet nulls = new BitSet();
+
+		abstract void read(ResultSet resultSet, int jdbcIndex, int row) throws SQLException;
+
+		abstract Object get(int row);
+
+		boolean isNull(int row) {
+			return nulls.get(row);
+		}
+	}
+
+	private static final class LongColumn extends Column {
+
+		long[] values = new long[INITIAL_CAPACITY];
+
+		@Override
+		void read(ResultSet resultSet, int jdbcIndex, int row) throws SQLException {
+			if (row == values.length) {
+				values = Arrays.copyOf(values, values.length * 2);
+			}
+			values[row] = resultSet.getLong(jdbcIndex);
+			if (resultSet.wasNull()) {
+				nulls.set(row);
+			}
+		}
+
+		@Override
+		Object get(int row) {
+			return nulls.get(row) ? null : Long.valueOf(values[row]);
+		}
+	}
+
+	private static final class DoubleColumn extends Column {
+
+		double[] values = new double[INITIAL_CAPACITY];
+
+		@Override
+		void read(ResultSet resultSet, int jdbcIndex, int row) throws SQLException {
+			if (row == values.length) {
+				values = Arrays.copyOf(values, values.length * 2);
+			}
+			values[row] = resultSet.getDouble(jdbcIndex);
+			if (resultSet.wasNull()) {
+				nulls.set(row);
+			}
+		}
+
+		@Override
+		Object get(int row) {
+			return nulls.get(row) ? null : Double.valueOf(values[row]);
+		}
+	}
+
+	private static final class BooleanColumn extends Column {
+
+		final BitSet values = new BitSet();
+
+		@Override
+		void read(ResultSet resultSet, int jdbcIndex, int row) throws SQLException {
+			boolean value = resultSet.getBoolean(jdbcIndex);
+			if (resultSet.wasNull()) {
+				nulls.set(row);
+			} else if (value) {
+				values.set(row);
+			}
+		}
+
+		@Override
+		Object get(int row) {
+			return nulls.get(row) ? null : Boolean.valueOf(values.get(row));
+		}
+	}
+
+	private static final class ObjectColumn extends Column {
+
+		Object[] values = new Object[INITIAL_CAPACITY];
+
+		@Override
+		void read(ResultSet resultSet, int jdbcIndex, int row) throws SQLException {
+			if (row == values.length) {
+				values = Arrays.copyOf(values, values.length * 2);
+			}
+			values[row] = resultSet.getObject(jdbcIndex);
+			if (values[row] == null) {
+				nulls.set(row);
+			}
+		}
+
+		@Override
+		Object get(int row) {
+			return values[row];
+		}
+	}
+
+}
@@ -0,0 +1,254 @@
+package com.qa.util;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+/**
+ * Writes failure screenshots to disk in the background. The scenario thread
+ * only hashes the captured PNG and hands it over; a bounded pool of encoder
+ * threads downscales it to screenshot.maxWidth, recompresses it as JPEG until it
+ * fits screenshot.maxBytes and writes it to screenshot.dir. Files are named by
+ * the hash of the captured bytes, so identical frames are encoded and stored
+ * once and the report can refer to a file instead of keeping the bytes.
+ */
+public class ScreenshotPipeline {
+
+	private static final float START_QUALITY = 0.85f;
+	private static final float MIN_QUALITY = 0.3f;
+
+	private static volatile ScreenshotPipeline shared;
+
+	private final Path directory;
+	private final int maxWidth;
+	private final int maxBytes;
+	private final ThreadPoolExecutor encoder;
+	private final Set<String> written = ConcurrentHashMap.newKeySet();
+
+	private final AtomicLong captured = new AtomicLong();
+	private final AtomicLong duplicates = new AtomicLong();
+	private final AtomicLong bytesIn = new AtomicLong();
+	private final AtomicLong bytesOut = new AtomicLong();
+
+	/**
+	 * @param directory where screenshots are written
+	 * @param maxWidth  wider screenshots are scaled down to this width
+	 * @param maxBytes  byte budget per written screenshot
+	 * @param threads   encoder threads
+	 * @param queueSize screenshots waiting for an encoder before the scenario
+	 *                  thread encodes its own, which bounds the memory held
+	 */
+	public ScreenshotPipeline(Path directory, int maxWidth, int maxBytes, int threads, int queueSize) {
+		this.directory = directory;
+		this.maxWidth = maxWidth;
+		this.maxBytes = maxBytes;
+		this.encoder = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<Runnable>(queueSize), runnable -> {
+					Thread thread = new Thread(runnable, "screenshot-encoder");
+					thread.setDaemon(true);
+					return thread;
+				}, (task, executor) -> task.run()); // unlike CallerRunsPolicy, also after shutdown
+	}
+
+	/**
+	 * @return the pipeline shared by every scenario in this JVM, configured from
+	 *         screenshot.* keys
+	 */
+	public static ScreenshotPipeline get() {
+		if (shared == null) {
+			synchronized (ScreenshotPipeline.class) {
+				if (shared == null) {
+					ConfigManager config = ConfigManager.get();
+					shared = new ScreenshotPipeline(Paths.get(config.getString("screenshot.dir", "test-output/screenshots")),
+							config.getInt("screenshot.maxWidth", 1280), config.getInt("screenshot.maxBytes", 200000),
+							config.getInt("screenshot.threads", 1), config.getInt("screenshot.queueSize", 16));
+				}
+			}
+		}
+		return shared;
+	}
+
+	/**
+	 * @return the shared pipeline, or null if no screenshot was taken in this JVM
+	 */
+	public static ScreenshotPipeline sharedIfCreated() {
+		return shared;
+	}
+
+	/**
+	 * Wait for the queued screenshots of the shared pipeline to be written and
+	 * stop it. The next {@link #get()}, e.g. by a scenario rerun in the same JVM,
+	 * starts a new pipeline.
+	 *
+	 * @param timeoutSeconds how long to wait
+	 */
+	public static void shutdownShared(long timeoutSeconds) {
+		ScreenshotPipeline pipeline;
+		synchronized (ScreenshotPipeline.class) {
+			pipeline = shared;
+			shared = null;
+		}
+		if (pipeline != null) {
+			pipeline.shutdown(timeoutSeconds);
+		}
+	}
+
+	/**
+	 * Hand a captured screenshot to the encoder. When the queue is full, or the
+	 * pipeline has been shut down, the calling thread encodes it itself.
+	 *
+	 * @param png the screenshot as captured by the driver
+	 * @return the name of the file the screenshot is, or will be, written to
+	 *         inside the screenshot directory
+	 */
+	public String submit(final byte[] png) {
+		final String fileName = sha1(png) + ".jpg";
+		captured.incrementAndGet();
+		if (!written.add(fileName)) {
+			duplicates.incrementAndGet();
+			return fileName;
+		}
+		bytesIn.addAndGet(png.length);
+		encoder.execute(() -> {
+			try {
+				write(fileName, encode(png));
+			} catch (IOException | RuntimeException e) {
+				written.remove(fileName);
+				System.out.println("Unable to write screenshot " + fileName + ": " + e.getMessage());
+			}
+		});
+		return fileName;
+	}
+
+	/**
+	 * @return the directory screenshots are written to
+	 */
+	public Path getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Wait for queued screenshots to be written and stop the encoder.
+	 *
+	 * @param timeoutSeconds how long to wait
+	 */
+	public void shutdown(long timeoutSeconds) {
+		encoder.shutdown();
+		try {
+			if (!encoder.awaitTermination(timeoutSeconds, TimeUnit.SECONDS)) {
+				System.out.println("Screenshot encoder did not finish within " + timeoutSeconds + "s");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		System.out.println(getStats());
+	}
+
+	public String getStats() {
+		return String.format("Screenshots: %d captured, %d duplicates, %d KB captured, %d KB written", captured.get(),
+				duplicates.get(), bytesIn.get() / 1024, bytesOut.get() / 1024);
+	}
+
+	/**
+	 * Scale down to the maximum width, then lower the JPEG quality and, if that
+	 * is not enough, the size until the image fits the byte budget.
+	 */
+	private byte[] encode(byte[] png) throws IOException {
+		BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+		if (image == null) {
+			throw new IOException("unreadable image");
+		}
+		image = scale(image, Math.min(maxWidth, image.getWidth()));
+		while (true) {
+			for (float quality = START_QUALITY; quality >= MIN_QUALITY; quality -= 0.15f) {
+				byte[] jpeg = toJpeg(image, quality);
+				if (jpeg.length <= maxBytes) {
+					return jpeg;
+				}
+			}
+			if (image.getWidth() <= 320) {
+				return toJpeg(image, MIN_QUALITY); // smallest useful size, keep it over budget
+			}
+			image = scale(image, image.getWidth() * 3 / 4);
+		}
+	}
+
+	/**
+	 * Redraw as RGB at the given width, which also drops the alpha channel JPEG
+	 * cannot store.
+	 */
+	private static BufferedImage scale(BufferedImage source, int width) {
+		int height = Math.max(1, (int) ((long) source.getHeight() * width / source.getWidth()));
+		BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = scaled.createGraphics();
+		try {
+			graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			graphics.drawImage(source, 0, 0, width, height, null);
+		} finally {
+			graphics.dispose();
+		}
+		return scaled;
+	}
+
+	private static byte[] toJpeg(BufferedImage image, float quality) throws IOException {
+		ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+			ImageWriteParam param = writer.getDefaultWriteParam();
+			param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+			param.setCompressionQuality(quality);
+			writer.setOutput(stream);
+			writer.write(null, new IIOImage(image, null, null), param);
+		} finally {
+			writer.dispose();
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * Write through a temporary file so the report never links a half written
+	 * image.
+	 */
+	private void write(String fileName, byte[] jpeg) throws IOException {
+		Files.createDirectories(directory);
+		Path temp = Files.createTempFile(directory, fileName, ".tmp");
+		Files.write(temp, jpeg);
+		Files.move(temp, directory.resolve(fileName), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+		bytesOut.addAndGet(jpeg.length);
+	}
+
+	private static String sha1(byte[] data) {
+		try {
+			StringBuilder hex = new StringBuilder();
+			for (byte b : MessageDigest.getInstance("SHA-1").digest(data)) {
+				hex.append(String.format("%02x", b));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
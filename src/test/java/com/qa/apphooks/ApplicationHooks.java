@@ -1,15 +1,32 @@
 package com.qa.apphooks;
 
-import java.util.Properties;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.openqa.selenium.OutputType;
 import org.openqa.selenium.TakesScreenshot;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.json.Json;
 
+import com.qa.factory.CommandMetrics;
 import com.qa.factory.DriverFactory;
-import com.qa.util.ConfigReader;
+import com.qa.factory.NetworkLayer;
+import com.qa.factory.PagePerformance;
+import com.qa.util.AsyncDbVerifier;
+import com.qa.util.ConfigManager;
+import com.qa.util.DatabaseUtil;
+import com.qa.util.QueryCache;
+import com.qa.util.ScreenshotPipeline;
 
 import io.cucumber.java.After;
+import io.cucumber.java.AfterAll;
+import io.cucumber.java.AfterStep;
 import io.cucumber.java.Before;
 import io.cucumber.java.Scenario;
 
@@ -17,41 +34,212 @@ public class ApplicationHooks {
 
 	private DriverFactory driverFactory;
 	private WebDriver driver;
-	private String configFilePath= System.getProperty("user.dir")+ "\\src\\test\\resources\\config\\config.properties";
-	private ConfigReader configReader;
-	Properties prop;
+	private ConfigManager config;
+
+	/**
+	 * Attempts per scenario (feature uri and line) in this JVM, so scenarios
+	 * rerun by surefire's rerunFailingTestsCount can be recognised.
+	 */
+	private static final Map<String, Integer> ATTEMPTS = new ConcurrentHashMap<String, Integer>();
 
 	@Before(order = 0)
-	public void getProperty() {
+	public void getProperty(Scenario scenario) {
+
+		config = ConfigManager.get();
+		backOffBeforeRetry(scenario);
 
-		configReader = new ConfigReader();
-		prop = configReader.init_prop(configFilePath);
+	}
 
+	/**
+	 * Collect page timings when perf.enabled is true, and always for @perf
+	 * scenarios, which check them.
+	 */
+	@Before(order = 2)
+	public void startPagePerformance(Scenario scenario) {
+		PagePerformance.startScenario(scenario.getName(),
+				config.getBoolean("perf.enabled", false) || scenario.getSourceTagNames().contains("@perf"));
 	}
 
 	@Before(order = 1)
 	public void launchBrowser() {
-		String browserName = prop.getProperty("browser");
+		String browserName = config.getString("browser");
 		driverFactory = new DriverFactory();
 
 		driver = driverFactory.init_driver(browserName);
 
 	}
 
+	/**
+	 * On a retry, log the attempt to the report and wait retry.backoffMs,
+	 * doubled for every further attempt up to retry.maxBackoffMs, before the
+	 * scenario takes a warm browser again.
+	 */
+	private void backOffBeforeRetry(Scenario scenario) {
+		int attempt = ATTEMPTS.merge(scenario.getUri() + ":" + scenario.getLine(), 1, Integer::sum);
+		if (attempt == 1) {
+			return;
+		}
+		long backoff = Math.min(config.getLong("retry.maxBackoffMs", 10000),
+				config.getLong("retry.backoffMs", 1000) << Math.min(attempt - 2, 20));
+		scenario.log("Retry: attempt " + attempt + " of this scenario, after " + backoff + " ms backoff");
+		try {
+			Thread.sleep(backoff);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Join background database checks at the end of every step when
+	 * db.verify.joinAtStepEnd is true; otherwise they are joined when the
+	 * scenario ends.
+	 */
+	@AfterStep
+	public void awaitStepDbChecks() {
+		if (config.getBoolean("db.verify.joinAtStepEnd", false)) {
+			AsyncDbVerifier.awaitPending();
+		}
+	}
+
+	/**
+	 * Sample the application's page timings after every step when
+	 * perf.captureAtStepEnd is true, so navigations made by clicks are measured
+	 * too. A page is only sampled once.
+	 */
+	@AfterStep
+	public void capturePagePerformance() {
+		if (config.getBoolean("perf.captureAtStepEnd", false)) {
+			PagePerformance.capture(driver, null);
+		}
+	}
+
+	/**
+	 * Log the page timings of the scenario, append them to the per-page trend
+	 * files in perf.dir, log and attach the recent trend of every visited page
+	 * and fail the scenario if a page was over its budget.
+	 */
+	@After(order = 4)
+	public void reportPagePerformance(Scenario scenario) {
+		PagePerformance performance = PagePerformance.current();
+		if (performance == null) {
+			return;
+		}
+		try {
+			if (performance.getSamples().isEmpty()) {
+				return;
+			}
+			scenario.log(performance.getSummary());
+			scenario.attach(new Json().toJson(performance.getSamples()).getBytes(StandardCharsets.UTF_8),
+					"application/json", "page-timings");
+			Path trends = Paths.get(config.getString("perf.dir", "test-output/perf"));
+			performance.writeTrends(trends);
+			String trendSummary = performance.getTrendSummary(trends, config.getInt("perf.trendVisits", 10));
+			scenario.log(trendSummary);
+			scenario.attach(trendSummary.getBytes(StandardCharsets.UTF_8), "text/plain", "page-trends");
+			List<String> violations = performance.getBudgetViolations();
+			if (!violations.isEmpty()) {
+				throw new AssertionError("Performance budget exceeded:\n  " + String.join("\n  ", violations));
+			}
+		} finally {
+			PagePerformance.clear();
+		}
+	}
+
+	/**
+	 * Log what the session's network layer saved on each page of the scenario,
+	 * up to and including the page still open.
+	 */
+	@After(order = 2)
+	public void reportNetworkLayer(Scenario scenario) {
+		NetworkLayer network = DriverFactory.getNetworkLayer();
+		if (network == null) {
+			return;
+		}
+		List<String> pages = network.flushPages();
+		if (pages.isEmpty()) {
+			return;
+		}
+		String report = String.join("\n", pages);
+		scenario.log(report);
+		scenario.attach(report.getBytes(StandardCharsets.UTF_8), "text/plain", "network-layer");
+	}
+
+	/**
+	 * Fail the scenario if a background database check submitted by one of its
+	 * steps did not hold. Runs before the other after hooks so the screenshot
+	 * reflects the failure.
+	 */
+	@After(order = 3)
+	public void awaitDbChecks() {
+		AsyncDbVerifier.endScenario();
+	}
+
+	/**
+	 * Roll back the test data the scenario seeded through its DatabaseUtil, so
+	 * the next scenario starts from the same database without re-seeding.
+	 */
+	@After(order = 0)
+	public void rollbackScenarioData() {
+		DatabaseUtil.endScenario();
+	}
+
 	@After(order = 0)
 	public void quitBrowser() {
 
-		driver.quit();
+		driverFactory.quit_driver();
+	}
+
+	/**
+	 * Attach the WebDriver command metrics of the scenario to the report and
+	 * write them to metrics.dir as JSON.
+	 */
+	@After(order = 2)
+	public void reportCommandMetrics(Scenario scenario) {
+		CommandMetrics metrics = CommandMetrics.current();
+		if (metrics == null) {
+			return;
+		}
+		byte[] json = new Json().toJson(metrics.toMap()).getBytes(StandardCharsets.UTF_8);
+		scenario.log(metrics.getSummary());
+		scenario.attach(json, "application/json", "webdriver-command-metrics");
+
+		String fileName = scenario.getName().replaceAll("[^A-Za-z0-9_-]", "_") + "-" + scenario.getLine() + ".json";
+		Path file = Paths.get(config.getString("metrics.dir", "test-output/metrics"), fileName);
+		try {
+			Files.createDirectories(file.getParent());
+			Files.write(file, json);
+		} catch (IOException e) {
+			System.out.println("Unable to write command metrics to " + file + ": " + e.getMessage());
+		}
 	}
 
 	@After(order = 1)
 	public void tearDown(Scenario scenario) {
 		if (scenario.isFailed()) {
-			String screenshotName = scenario.getName().replaceAll("", "_");
-			byte[] sourcePath = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
-			scenario.attach(sourcePath, "image/png", screenshotName);
+			String screenshotName = scenario.getName().replaceAll("[^A-Za-z0-9_-]", "_");
+			byte[] screenshot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+			// Encoded and written in the background; the report links the file
+			String fileName = ScreenshotPipeline.get().submit(screenshot);
+			String link = config.getString("screenshot.report.path", "../screenshots/") + fileName;
+			scenario.log("<a href='" + link + "' target='_blank'><img src='" + link + "' alt='" + screenshotName
+					+ "' width='480'/></a>");
 
 		}
+
+		QueryCache queryCache = QueryCache.sharedIfCreated();
+		if (queryCache != null) {
+			scenario.log(queryCache.getStats());
+		}
+	}
+
+	/**
+	 * Let the background encoder finish writing screenshots before the reports
+	 * are generated. Surefire reruns start another Cucumber runtime in this JVM
+	 * afterwards, which gets a new pipeline.
+	 */
+	@AfterAll
+	public static void flushScreenshots() {
+		ScreenshotPipeline.shutdownShared(ConfigManager.get().getLong("screenshot.flushTimeoutSeconds", 60));
 	}
 
 }
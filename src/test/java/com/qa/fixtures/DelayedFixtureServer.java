@@ -0,0 +1,327 @@
+package com.qa.fixtures;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local web server with artificially slow responses, used to check that page
+ * timings and performance budgets report what the browser experienced. Files
+ * in src/test/resources/fixtures/pages are served as they are; every other
+ * path serves a small page titled after the path, with a stylesheet, a script
+ * and an image. Pages wait pageDelayMs before responding and each asset
+ * assetDelayMs.
+ * <p>
+ * /account is a stub login with the form fields of {@link com.qa.pages.LoginPage}:
+ * /account/login accepts any user with the password "secret" and redirects to
+ * /account ("My Account"), which redirects back to the login form without a
+ * valid session cookie. Form logins are counted and sessions can be expired,
+ * to check when the session cache logs in through the form.
+ * <p>
+ * Requests and bytes are counted per path, and every response other than
+ * /account names its path in an X-Fixture-Path header, to check what a
+ * request filter in the browser let through.
+ *
+ * <pre>
+ * DelayedFixtureServer [port] [pageDelayMs] [assetDelayMs]
+ * </pre>
+ */
+public class DelayedFixtureServer {
+
+	private static DelayedFixtureServer shared;
+
+	private final HttpServer server;
+	private final ExecutorService workers;
+	private volatile long pageDelayMs;
+	private volatile long assetDelayMs;
+	private final Set<String> sessions = ConcurrentHashMap.newKeySet();
+	private final AtomicInteger formLogins = new AtomicInteger();
+	private final AtomicInteger rejectedLogins = new AtomicInteger();
+	private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<String, AtomicInteger>();
+	private final Map<String, AtomicLong> bytesServed = new ConcurrentHashMap<String, AtomicLong>();
+
+	/**
+	 * @param port 0 for any free port
+	 */
+	public DelayedFixtureServer(int port) throws IOException {
+		this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+		this.workers = Executors.newCachedThreadPool(runnable -> {
+			Thread thread = new Thread(runnable, "fixture-server");
+			thread.setDaemon(true);
+			return thread;
+		});
+		server.createContext("/", this::handle);
+		server.createContext("/account", this::handleAccount);
+		server.setExecutor(workers); // delayed responses must not hold up each other
+		server.start();
+	}
+
+	public static void main(String[] args) throws IOException {
+		DelayedFixtureServer server = new DelayedFixtureServer(args.length > 0 ? Integer.parseInt(args[0]) : 8000);
+		server.setDelays(args.length > 1 ? Long.parseLong(args[1]) : 0, args.length > 2 ? Long.parseLong(args[2]) : 0);
+		System.out.println("Fixture server listening on " + server.getBaseUrl());
+	}
+
+	/**
+	 * @return the server shared by the scenarios of this JVM, started on a free
+	 *         port on first use
+	 */
+	public static synchronized DelayedFixtureServer shared() throws IOException {
+		if (shared == null) {
+			shared = new DelayedFixtureServer(0);
+			Runtime.getRuntime().addShutdownHook(new Thread(shared::stop));
+		}
+		return shared;
+	}
+
+	public void setDelays(long pageDelayMs, long assetDelayMs) {
+		this.pageDelayMs = pageDelayMs;
+		this.assetDelayMs = assetDelayMs;
+	}
+
+	/**
+	 * @return logins through the /account/login form since the last
+	 *         {@link #resetLogins()}
+	 */
+	public int getFormLogins() {
+		return formLogins.get();
+	}
+
+	/**
+	 * @return form logins with a wrong password since the last
+	 *         {@link #resetLogins()}
+	 */
+	public int getRejectedLogins() {
+		return rejectedLogins.get();
+	}
+
+	/**
+	 * Reject every session issued so far, as a server restart or expiry would.
+	 */
+	public void expireSessions() {
+		sessions.clear();
+	}
+
+	/**
+	 * Expire every session and reset the form login counts.
+	 */
+	public void resetLogins() {
+		sessions.clear();
+		formLogins.set(0);
+		rejectedLogins.set(0);
+	}
+
+	/**
+	 * @param path e.g. /static/app.js
+	 * @return requests received for the path since the last
+	 *         {@link #resetRequests()}
+	 */
+	public int getRequestCount(String path) {
+		AtomicInteger count = requests.get(path);
+		return count == null ? 0 : count.get();
+	}
+
+	/**
+	 * @param path e.g. /static/app.js
+	 * @return response body bytes sent for the path since the last
+	 *         {@link #resetRequests()}
+	 */
+	public long getBytesServed(String path) {
+		AtomicLong bytes = bytesServed.get(path);
+		return bytes == null ? 0 : bytes.get();
+	}
+
+	public void resetRequests() {
+		requests.clear();
+		bytesServed.clear();
+	}
+
+	public String getBaseUrl() {
+		return "http://127.0.0.1:" + server.getAddress().getPort();
+	}
+
+	public void stop() {
+		server.stop(0);
+		workers.shutdownNow();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		String path = exchange.getRequestURI().getPath();
+		requests.computeIfAbsent(path, key -> new AtomicInteger()).incrementAndGet();
+		byte[] page = path.contains("..") ? null : readPage(path);
+		String body;
+		String contentType;
+		long delay = assetDelayMs;
+		if (page != null) {
+			body = null;
+			contentType = contentTypeOf(path);
+			delay = contentType.startsWith("text/html") ? pageDelayMs : assetDelayMs;
+		} else if (path.endsWith(".css")) {
+			body = "body { font-family: sans-serif; }";
+			contentType = "text/css";
+		} else if (path.endsWith(".js")) {
+			body = "document.documentElement.setAttribute('data-fixture', 'loaded');";
+			contentType = "application/javascript";
+		} else if (path.endsWith(".svg")) {
+			body = "<svg xmlns='http://www.w3.org/2000/svg' width='10' height='10'><rect width='10' height='10'/></svg>";
+			contentType = "image/svg+xml";
+		} else if (path.equals("/favicon.ico")) {
+			exchange.sendResponseHeaders(404, -1);
+			exchange.close();
+			return;
+		} else {
+			String title = path.length() > 1 ? path.substring(1) : "home";
+			body = "<!DOCTYPE html><html><head><title>" + title + "</title>"
+					+ "<link rel='stylesheet' href='/fixture.css'><script src='/fixture.js'></script></head>"
+					+ "<body><h1>" + title + "</h1><img src='/fixture.svg' alt='fixture'></body></html>";
+			contentType = "text/html; charset=utf-8";
+			delay = pageDelayMs;
+		}
+		try {
+			Thread.sleep(delay);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		byte[] bytes = page != null ? page : body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", contentType);
+		exchange.getResponseHeaders().set("Cache-Control", "no-store"); // every visit pays the delay
+		exchange.getResponseHeaders().set("X-Fixture-Path", path);
+		bytesServed.computeIfAbsent(path, key -> new AtomicLong()).addAndGet(bytes.length);
+		exchange.sendResponseHeaders(200, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	private void handleAccount(HttpExchange exchange) throws IOException {
+		String path = exchange.getRequestURI().getPath();
+		String session = sessionOf(exchange);
+		if (path.equals("/account/login") && "POST".equals(exchange.getRequestMethod())) {
+			Map<String, String> form = readForm(exchange);
+			if (!form.getOrDefault("login[username]", "").isEmpty() && "secret".equals(form.get("login[password]"))) {
+				String issued = UUID.randomUUID().toString();
+				sessions.add(issued);
+				formLogins.incrementAndGet();
+				exchange.getResponseHeaders().add("Set-Cookie", "fixture_session=" + issued + "; Path=/; HttpOnly");
+				redirect(exchange, "/account");
+			} else {
+				rejectedLogins.incrementAndGet();
+				respond(exchange, 200, loginForm("The account sign-in was incorrect."));
+			}
+		} else if (path.equals("/account/login")) {
+			respond(exchange, 200, loginForm(null));
+		} else if (path.equals("/account") && session != null && sessions.contains(session)) {
+			respond(exchange, 200, "<!DOCTYPE html><html><head><title>My Account</title></head>"
+					+ "<body><h1>My Account</h1></body></html>");
+		} else {
+			redirect(exchange, "/account/login");
+		}
+	}
+
+	private static String loginForm(String error) {
+		return "<!DOCTYPE html><html><head><title>Customer Login</title></head><body>"
+				+ (error == null ? "" : "<div class='message-error error message'><div>" + error + "</div></div>")
+				+ "<form method='post' action='/account/login'>"
+				+ "<input type='email' name='login[username]'><input type='password' name='login[password]'>"
+				+ "<button type='submit' name='send'>Sign In</button></form></body></html>";
+	}
+
+	private static String sessionOf(HttpExchange exchange) {
+		for (String header : exchange.getRequestHeaders().getOrDefault("Cookie", Collections.<String>emptyList())) {
+			for (String cookie : header.split(";")) {
+				String[] pair = cookie.trim().split("=", 2);
+				if (pair.length == 2 && pair[0].equals("fixture_session")) {
+					return pair[1];
+				}
+			}
+		}
+		return null;
+	}
+
+	private static Map<String, String> readForm(HttpExchange exchange) throws IOException {
+		Map<String, String> form = new HashMap<String, String>();
+		String body = new String(readAll(exchange.getRequestBody()), StandardCharsets.UTF_8);
+		for (String field : body.split("&")) {
+			String[] pair = field.split("=", 2);
+			if (pair.length == 2) {
+				form.put(URLDecoder.decode(pair[0], "UTF-8"), URLDecoder.decode(pair[1], "UTF-8"));
+			}
+		}
+		return form;
+	}
+
+	private static void redirect(HttpExchange exchange, String location) throws IOException {
+		exchange.getResponseHeaders().set("Location", location);
+		exchange.getResponseHeaders().set("Cache-Control", "no-store");
+		exchange.sendResponseHeaders(303, -1);
+		exchange.close();
+	}
+
+	private static void respond(HttpExchange exchange, int status, String html) throws IOException {
+		byte[] bytes = html.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+		exchange.getResponseHeaders().set("Cache-Control", "no-store");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	/**
+	 * @return the file under fixtures/pages on the classpath, or null
+	 */
+	private static byte[] readPage(String path) throws IOException {
+		if (path.endsWith("/")) {
+			return null;
+		}
+		InputStream resource = DelayedFixtureServer.class.getClassLoader()
+				.getResourceAsStream("fixtures/pages" + path);
+		if (resource == null) {
+			return null;
+		}
+		try (InputStream in = resource) {
+			return readAll(in);
+		}
+	}
+
+	private static byte[] readAll(InputStream in) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = in.read(buffer)) != -1) {
+			bytes.write(buffer, 0, read);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static String contentTypeOf(String path) {
+		if (path.endsWith(".css")) {
+			return "text/css";
+		}
+		if (path.endsWith(".js")) {
+			return "application/javascript";
+		}
+		if (path.endsWith(".svg")) {
+			return "image/svg+xml";
+		}
+		return "text/html; charset=utf-8";
+	}
+
+}
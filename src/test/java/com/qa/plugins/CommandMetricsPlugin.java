@@ -0,0 +1,48 @@
+package com.qa.plugins;
+
+import com.qa.factory.CommandMetrics;
+
+import io.cucumber.plugin.ConcurrentEventListener;
+import io.cucumber.plugin.event.EventPublisher;
+import io.cucumber.plugin.event.PickleStepTestStep;
+import io.cucumber.plugin.event.TestCaseFinished;
+import io.cucumber.plugin.event.TestCaseStarted;
+import io.cucumber.plugin.event.TestStepFinished;
+import io.cucumber.plugin.event.TestStepStarted;
+
+/**
+ * Cucumber plugin that tells {@link CommandMetrics} which scenario and step
+ * are running, so WebDriver commands can be attributed to the step text.
+ * Concurrent listeners receive events on the thread executing the scenario,
+ * which is what the thread local metrics rely on.
+ */
+public class CommandMetricsPlugin implements ConcurrentEventListener {
+
+	@Override
+	public void setEventPublisher(EventPublisher publisher) {
+		publisher.registerHandlerFor(TestCaseStarted.class, this::scenarioStarted);
+		publisher.registerHandlerFor(TestStepStarted.class, this::stepStarted);
+		publisher.registerHandlerFor(TestStepFinished.class, this::stepFinished);
+		publisher.registerHandlerFor(TestCaseFinished.class, event -> CommandMetrics.clear());
+	}
+
+	private void scenarioStarted(TestCaseStarted event) {
+		CommandMetrics.startScenario(event.getTestCase().getName());
+	}
+
+	private void stepStarted(TestStepStarted event) {
+		CommandMetrics metrics = CommandMetrics.current();
+		if (metrics != null && event.getTestStep() instanceof PickleStepTestStep) {
+			PickleStepTestStep step = (PickleStepTestStep) event.getTestStep();
+			metrics.startStep(step.getStep().getKeyword().trim() + " " + step.getStep().getText());
+		}
+	}
+
+	private void stepFinished(TestStepFinished event) {
+		CommandMetrics metrics = CommandMetrics.current();
+		if (metrics != null && event.getTestStep() instanceof PickleStepTestStep) {
+			metrics.endStep();
+		}
+	}
+
+}
@@ -0,0 +1,29 @@
+package com.qa.plugins;
+
+import com.qa.util.AsyncDbVerifier;
+
+import io.cucumber.plugin.ConcurrentEventListener;
+import io.cucumber.plugin.event.EventPublisher;
+import io.cucumber.plugin.event.PickleStepTestStep;
+import io.cucumber.plugin.event.TestStepStarted;
+
+/**
+ * Cucumber plugin that tells {@link AsyncDbVerifier} which step is running on
+ * the scenario thread, so a failed background database check is reported
+ * against the step that submitted it.
+ */
+public class DbVerifyPlugin implements ConcurrentEventListener {
+
+	@Override
+	public void setEventPublisher(EventPublisher publisher) {
+		publisher.registerHandlerFor(TestStepStarted.class, this::stepStarted);
+	}
+
+	private void stepStarted(TestStepStarted event) {
+		if (event.getTestStep() instanceof PickleStepTestStep) {
+			PickleStepTestStep step = (PickleStepTestStep) event.getTestStep();
+			AsyncDbVerifier.startStep(step.getStep().getKeyword().trim() + " " + step.getStep().getText());
+		}
+	}
+
+}
@@ -0,0 +1,171 @@
+package com.qa.plugins;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.json.JsonOutput;
+
+import io.cucumber.plugin.ConcurrentEventListener;
+import io.cucumber.plugin.event.EventPublisher;
+import io.cucumber.plugin.event.PickleStepTestStep;
+import io.cucumber.plugin.event.Result;
+import io.cucumber.plugin.event.Status;
+import io.cucumber.plugin.event.TestCase;
+import io.cucumber.plugin.event.TestCaseFinished;
+import io.cucumber.plugin.event.TestRunFinished;
+import io.cucumber.plugin.event.TestStepFinished;
+import io.cucumber.plugin.event.WriteEvent;
+
+/**
+ * Cucumber plugin that appends one JSON line per finished scenario to an
+ * event log. Every JVM writes its own file (events-&lt;pid&gt;-&lt;start&gt;.jsonl)
+ * in a directory per run below the given directory, default
+ * target/events/&lt;run.id&gt;, so parallel workers and surefire forks never
+ * share a file and earlier runs stay apart. The pom sets run.id once per build;
+ * without it the JVM's start time is used. Lines are flushed as scenarios
+ * finish and nothing is kept once written; {@link com.qa.report.ReportMerger}
+ * renders the logs of all JVMs of a run into one report.
+ */
+public class EventLogPlugin implements ConcurrentEventListener {
+
+	/**
+	 * Runs per scenario in this JVM; a scenario retried by surefire is logged
+	 * once per attempt.
+	 */
+	private static final Map<String, Integer> ATTEMPTS = new ConcurrentHashMap<String, Integer>();
+
+	private final Path file;
+	private final Map<UUID, List<Map<String, Object>>> steps = new ConcurrentHashMap<UUID, List<Map<String, Object>>>();
+	private final Map<UUID, List<String>> logs = new ConcurrentHashMap<UUID, List<String>>();
+	private final Json json = new Json();
+	private BufferedWriter writer;
+	private long lastFinishedAt;
+
+	public EventLogPlugin() {
+		this("target/events");
+	}
+
+	/**
+	 * @param directory directory the event log of this JVM is written to
+	 */
+	public EventLogPlugin(String directory) {
+		this.file = Paths.get(directory, runId(),
+				"events-" + ProcessHandle.current().pid() + "-" + System.currentTimeMillis() + ".jsonl");
+	}
+
+	private static String runId() {
+		String runId = System.getProperty("run.id", "").trim();
+		if (!runId.isEmpty() && !runId.contains("${")) {
+			return runId.replaceAll("[^A-Za-z0-9._-]", "_");
+		}
+		return LocalDateTime.ofInstant(Instant.ofEpochMilli(ManagementFactory.getRuntimeMXBean().getStartTime()),
+				ZoneId.systemDefault()).format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+	}
+
+	@Override
+	public void setEventPublisher(EventPublisher publisher) {
+		publisher.registerHandlerFor(TestStepFinished.class, this::stepFinished);
+		publisher.registerHandlerFor(WriteEvent.class, this::logWritten);
+		publisher.registerHandlerFor(TestCaseFinished.class, this::scenarioFinished);
+		publisher.registerHandlerFor(TestRunFinished.class, event -> close());
+	}
+
+	private void stepFinished(TestStepFinished event) {
+		Result result = event.getResult();
+		boolean pickleStep = event.getTestStep() instanceof PickleStepTestStep;
+		if (!pickleStep && result.getStatus() == Status.PASSED) {
+			return; // passing hooks are not worth a line in the report
+		}
+		Map<String, Object> step = new LinkedHashMap<String, Object>();
+		if (pickleStep) {
+			PickleStepTestStep pickle = (PickleStepTestStep) event.getTestStep();
+			step.put("text", pickle.getStep().getKeyword().trim() + " " + pickle.getStep().getText());
+		} else {
+			step.put("text", "Hook " + event.getTestStep().getCodeLocation());
+		}
+		step.put("status", result.getStatus().name());
+		step.put("durationMs", result.getDuration().toMillis());
+		if (result.getError() != null) {
+			step.put("error", String.valueOf(result.getError()));
+		}
+		steps.computeIfAbsent(event.getTestCase().getId(), id -> new ArrayList<Map<String, Object>>()).add(step);
+	}
+
+	private void logWritten(WriteEvent event) {
+		logs.computeIfAbsent(event.getTestCase().getId(), id -> new ArrayList<String>()).add(event.getText());
+	}
+
+	private void scenarioFinished(TestCaseFinished event) {
+		TestCase testCase = event.getTestCase();
+		Map<String, Object> record = new LinkedHashMap<String, Object>();
+		record.put("feature", String.valueOf(testCase.getUri()));
+		record.put("scenario", testCase.getName());
+		record.put("line", testCase.getLocation().getLine());
+		record.put("tags", testCase.getTags());
+		record.put("status", event.getResult().getStatus().name());
+		record.put("attempt", ATTEMPTS.merge(testCase.getUri() + ":" + testCase.getLocation().getLine(), 1, Integer::sum));
+		record.put("durationMs", event.getResult().getDuration().toMillis());
+		record.put("worker", ProcessHandle.current().pid() + "/" + Thread.currentThread().getName());
+		List<Map<String, Object>> scenarioSteps = steps.remove(testCase.getId());
+		record.put("steps", scenarioSteps == null ? new ArrayList<Object>() : scenarioSteps);
+		List<String> scenarioLogs = logs.remove(testCase.getId());
+		record.put("logs", scenarioLogs == null ? new ArrayList<Object>() : scenarioLogs);
+		append(record);
+	}
+
+	/**
+	 * Append one line. finishedAt is assigned under the lock so it never goes
+	 * backwards within a file, which the merger relies on.
+	 */
+	private synchronized void append(Map<String, Object> record) {
+		lastFinishedAt = Math.max(lastFinishedAt, System.currentTimeMillis());
+		record.put("finishedAt", lastFinishedAt);
+		StringBuilder line = new StringBuilder();
+		try (JsonOutput output = json.newOutput(line)) {
+			output.setPrettyPrint(false).write(record);
+		}
+		try {
+			if (writer == null) {
+				Files.createDirectories(file.getParent());
+				writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+						StandardOpenOption.APPEND);
+			}
+			writer.write(line.toString());
+			writer.newLine();
+			writer.flush();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to write the event log " + file, e);
+		}
+	}
+
+	private synchronized void close() {
+		if (writer == null) {
+			return;
+		}
+		try {
+			writer.close();
+		} catch (IOException e) {
+			System.out.println("Unable to close the event log " + file + ": " + e.getMessage());
+		}
+		writer = null;
+	}
+
+}
@@ -0,0 +1,238 @@
+package com.qa.report;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.json.JsonException;
+
+/**
+ * Renders the event logs written by {@link com.qa.plugins.EventLogPlugin} into
+ * a single HTML report. The logs of every JVM are merged in one streaming pass
+ * ordered by finish time: only the next line of each log is held in memory,
+ * and scenarios are written to the report as they are read.
+ *
+ * <pre>
+ * ReportMerger &lt;report.html&gt; &lt;event log file or directory&gt;...
+ * </pre>
+ */
+public class ReportMerger {
+
+	private static final Comparator<LogCursor> BY_FINISH_TIME = Comparator
+			.comparingLong((LogCursor cursor) -> cursor.finishedAt).thenComparing(cursor -> cursor.file);
+
+	private final Json json = new Json();
+	private final Map<String, Integer> statusCounts = new TreeMap<String, Integer>();
+	private long scenarios;
+	private long totalMillis;
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.out.println("Usage: ReportMerger <report.html> <event log file or directory>...");
+			return;
+		}
+		List<Path> logs = new ArrayList<Path>();
+		for (int i = 1; i < args.length; i++) {
+			collect(Paths.get(args[i]), logs);
+		}
+		Path report = Paths.get(args[0]);
+		new ReportMerger().merge(logs, report);
+		System.out.println("Merged " + logs.size() + " event log(s) into " + report);
+	}
+
+	/**
+	 * Merge the given event logs into one HTML report.
+	 *
+	 * @param logs   JSON lines event logs, one per JVM
+	 * @param report the HTML file to write
+	 */
+	public void merge(List<Path> logs, Path report) throws IOException {
+		PriorityQueue<LogCursor> queue = new PriorityQueue<LogCursor>(Math.max(1, logs.size()), BY_FINISH_TIME);
+		try {
+			for (Path log : logs) {
+				LogCursor cursor = new LogCursor(log);
+				if (cursor.advance()) {
+					queue.add(cursor);
+				} else {
+					cursor.close();
+				}
+			}
+			if (report.toAbsolutePath().getParent() != null) {
+				Files.createDirectories(report.toAbsolutePath().getParent());
+			}
+			try (BufferedWriter out = Files.newBufferedWriter(report, StandardCharsets.UTF_8)) {
+				writeHeader(out);
+				while (!queue.isEmpty()) {
+					LogCursor cursor = queue.poll();
+					writeScenario(out, cursor.record);
+					if (cursor.advance()) {
+						queue.add(cursor);
+					} else {
+						cursor.close();
+					}
+				}
+				writeFooter(out, logs.size());
+			}
+		} finally {
+			for (LogCursor cursor : queue) {
+				cursor.close();
+			}
+		}
+	}
+
+	private static void collect(Path path, List<Path> logs) throws IOException {
+		if (Files.isDirectory(path)) {
+			try (DirectoryStream<Path> files = Files.newDirectoryStream(path, "*.jsonl")) {
+				for (Path file : files) {
+					logs.add(file);
+				}
+			}
+		} else if (Files.exists(path)) {
+			logs.add(path);
+		}
+	}
+
+	private void writeHeader(Writer out) throws IOException {
+		out.write("<!DOCTYPE html><html><head><meta charset='utf-8'><title>Test Report</title><style>"
+				+ "body{font-family:sans-serif;margin:2em}details{border:1px solid #ddd;margin:4px 0;padding:4px 8px}"
+				+ "summary{cursor:pointer}.PASSED>summary{color:#2e7d32}.FAILED>summary{color:#c62828}"
+				+ ".SKIPPED>summary,.PENDING>summary,.UNDEFINED>summary{color:#ef6c00}"
+				+ "table{border-collapse:collapse}td{padding:2px 8px;vertical-align:top}pre{white-space:pre-wrap}"
+				+ "</style></head><body><h1>Test Report</h1>\n");
+	}
+
+	@SuppressWarnings("unchecked")
+	private void writeScenario(Writer out, Map<String, Object> record) throws IOException {
+		String status = String.valueOf(record.get("status"));
+		long duration = ((Number) record.get("durationMs")).longValue();
+		scenarios++;
+		totalMillis += duration;
+		statusCounts.merge(status, 1, Integer::sum);
+
+		out.write("<details class='" + escape(status) + "'><summary>" + escape(status) + " &middot; "
+				+ escape(String.valueOf(record.get("scenario"))) + " &middot; " + duration + " ms"
+				+ (isRetry(record) ? " &middot; attempt " + record.get("attempt") : "") + "</summary>");
+		out.write("<p>" + escape(record.get("feature") + ":" + record.get("line")) + " &middot; "
+				+ escape(String.valueOf(record.get("tags"))) + " &middot; worker "
+				+ escape(String.valueOf(record.get("worker"))) + "</p><table>");
+		for (Map<String, Object> step : (List<Map<String, Object>>) record.get("steps")) {
+			out.write("<tr><td>" + escape(String.valueOf(step.get("status"))) + "</td><td>"
+					+ escape(String.valueOf(step.get("text"))) + "</td><td>" + step.get("durationMs") + " ms</td></tr>");
+			if (step.get("error") != null) {
+				out.write("<tr><td></td><td colspan='2'><pre>" + escape(String.valueOf(step.get("error")))
+						+ "</pre></td></tr>");
+			}
+		}
+		out.write("</table>");
+		for (Object log : (List<Object>) record.get("logs")) {
+			out.write(isScreenshotLink(String.valueOf(log)) ? "<p>" + log + "</p>"
+					: "<pre>" + escape(String.valueOf(log)) + "</pre>");
+		}
+		out.write("</details>\n");
+	}
+
+	private void writeFooter(Writer out, int logCount) throws IOException {
+		out.write("<h2>Summary</h2><p>" + scenarios + " scenarios from " + logCount + " event log(s), "
+				+ totalMillis / 1000 + " s scenario time</p><ul>");
+		for (Map.Entry<String, Integer> count : statusCounts.entrySet()) {
+			out.write("<li>" + escape(count.getKey()) + ": " + count.getValue() + "</li>");
+		}
+		out.write("</ul></body></html>\n");
+	}
+
+	private static boolean isRetry(Map<String, Object> record) {
+		Object attempt = record.get("attempt");
+		return attempt instanceof Number && ((Number) attempt).intValue() > 1;
+	}
+
+	/**
+	 * Screenshot links logged by ApplicationHooks are the only HTML rendered as
+	 * is; everything else is escaped.
+	 */
+	private static boolean isScreenshotLink(String log) {
+		return log.startsWith("<a href='") && log.endsWith("</a>") && !log.toLowerCase().contains("<script");
+	}
+
+	private static String escape(String text) {
+		StringBuilder escaped = new StringBuilder(text.length());
+		for (char c : text.toCharArray()) {
+			switch (c) {
+			case '<':
+				escaped.append("&lt;");
+				break;
+			case '>':
+				escaped.append("&gt;");
+				break;
+			case '&':
+				escaped.append("&amp;");
+				break;
+			case '\'':
+				escaped.append("&#39;");
+				break;
+			case '"':
+				escaped.append("&quot;");
+				break;
+			default:
+				escaped.append(c);
+			}
+		}
+		return escaped.toString();
+	}
+
+	/**
+	 * The next unread scenario of one event log.
+	 */
+	private final class LogCursor {
+
+		private final String file;
+		private final BufferedReader reader;
+		private Map<String, Object> record;
+		private long finishedAt;
+
+		LogCursor(Path path) throws IOException {
+			this.file = path.toString();
+			this.reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+		}
+
+		boolean advance() throws IOException {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.trim().isEmpty()) {
+					continue;
+				}
+				try {
+					record = json.toType(line, Json.MAP_TYPE);
+				} catch (JsonException e) {
+					// the last line of a JVM that was killed while writing
+					System.out.println("Skipping unreadable line in " + file + ": " + e.getMessage());
+					continue;
+				}
+				finishedAt = ((Number) record.get("finishedAt")).longValue();
+				return true;
+			}
+			return false;
+		}
+
+		void close() {
+			try {
+				reader.close();
+			} catch (IOException e) {
+				System.out.println("Unable to close " + file + ": " + e.getMessage());
+			}
+		}
+	}
+
+}
@@ -0,0 +1,143 @@
+package com.qa.stepdefinations;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.qa.util.ConfigManager;
+import com.qa.util.ConnectionPool;
+import com.qa.util.ConnectionPool.PooledConnection;
+
+import io.cucumber.java.After;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+
+/**
+ * ConnectionPool checks against the database of db.url, on a small pool of
+ * the scenario's own so exhausting it does not block the shared one.
+ */
+public class ConnectionPoolStepDefination {
+
+	private ConnectionPool pool;
+	private final Deque<PooledConnection> borrowed = new ArrayDeque<PooledConnection>();
+	private PreparedStatement statement;
+
+	@Given("a connection pool of {int} connections with {int} cached statements and a {int} ms borrow timeout")
+	public void a_connection_pool_of_connections(Integer maxSize, Integer cacheSize, Integer timeoutMs) {
+		ConfigManager config = ConfigManager.get();
+		pool = new ConnectionPool(config.getString("db.url"), config.getString("db.username"),
+				config.getString("db.password"), maxSize, cacheSize, timeoutMs);
+	}
+
+	@When("{int} connection(s) is/are borrowed from the pool")
+	public void connections_are_borrowed_from_the_pool(Integer count) throws SQLException {
+		for (int i = 0; i < count; i++) {
+			borrowed.push(pool.borrow());
+		}
+	}
+
+	@When("the last borrowed connection is released")
+	public void the_last_borrowed_connection_is_released() {
+		pool.release(borrowed.pop());
+	}
+
+	@Then("the pool has {int} active, {int} idle and {int} waiting connection(s)")
+	public void the_pool_has_active_idle_and_waiting_connections(Integer active, Integer idle, Integer waiting) {
+		assertEquals(active.intValue(), pool.getActiveCount(), "active, " + pool.getStats());
+		assertEquals(idle.intValue(), pool.getIdleCount(), "idle, " + pool.getStats());
+		assertEquals(waiting.intValue(), pool.getWaitingCount(), "waiting, " + pool.getStats());
+	}
+
+	@Then("borrowing from the exhausted pool waits and fails after {int} ms")
+	public void borrowing_from_the_exhausted_pool_fails_after_ms(Integer timeoutMs) throws InterruptedException {
+		long start = System.nanoTime();
+		CompletableFuture<PooledConnection> borrower = borrowInBackground();
+		ExecutionException failure = assertThrows(ExecutionException.class,
+				() -> borrower.get(timeoutMs + 5000, TimeUnit.MILLISECONDS));
+		long waitedMs = (System.nanoTime() - start) / 1_000_000;
+		assertTrue(failure.getCause() instanceof SQLException, "Expected a borrow timeout, got " + failure.getCause());
+		assertTrue(waitedMs >= timeoutMs, "Borrow failed after " + waitedMs + " ms, expected " + timeoutMs + " ms");
+		assertEquals(0, pool.getWaitingCount(), "waiting after the timeout, " + pool.getStats());
+	}
+
+	@Then("a borrower waiting on the exhausted pool gets the next released connection")
+	public void a_waiting_borrower_gets_the_next_released_connection()
+			throws InterruptedException, ExecutionException, TimeoutException {
+		CompletableFuture<PooledConnection> borrower = borrowInBackground();
+		PooledConnection released = borrowed.peek();
+		the_last_borrowed_connection_is_released();
+		PooledConnection connection = borrower.get(5, TimeUnit.SECONDS);
+		borrowed.push(connection);
+		assertSame(released, connection, "The waiting borrower gets the released connection");
+	}
+
+	@When("the last borrowed connection prepares {string}")
+	public void the_last_borrowed_connection_prepares(String query) throws SQLException {
+		statement = borrowed.peek().prepare(query);
+	}
+
+	/**
+	 * A connection is handed out again most recently released first, with the
+	 * statements it prepared before.
+	 */
+	@Then("the last borrowed connection reuses its statement for {string}")
+	public void the_last_borrowed_connection_reuses_its_statement_for(String query) throws SQLException {
+		assertSame(statement, borrowed.peek().prepare(query), "Cached statement for " + query);
+	}
+
+	@Then("preparing {int} other queries evicts and closes the statement for {string}")
+	public void preparing_other_queries_evicts_the_statement_for(Integer others, String query) throws SQLException {
+		PooledConnection connection = borrowed.peek();
+		for (int i = 1; i <= others; i++) {
+			connection.prepare(query + " + " + i);
+		}
+		assertTrue(statement.isClosed(), "The least recently used statement is closed");
+		assertNotSame(statement, connection.prepare(query), "Evicted statement for " + query);
+	}
+
+	@After
+	public void shutdownPool() {
+		if (pool == null) {
+			return;
+		}
+		while (!borrowed.isEmpty()) {
+			pool.release(borrowed.pop());
+		}
+		pool.shutdown();
+	}
+
+	/**
+	 * Borrow from another thread, returning once it is blocked on the pool.
+	 */
+	private CompletableFuture<PooledConnection> borrowInBackground() throws InterruptedException {
+		CompletableFuture<PooledConnection> borrower = new CompletableFuture<PooledConnection>();
+		Thread thread = new Thread(() -> {
+			try {
+				borrower.complete(pool.borrow());
+			} catch (SQLException | RuntimeException e) {
+				borrower.completeExceptionally(e);
+			}
+		}, "pool-borrower");
+		thread.setDaemon(true);
+		thread.start();
+		long deadline = System.currentTimeMillis() + 5000;
+		while (pool.getWaitingCount() == 0 && !borrower.isDone() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+		assertEquals(1, pool.getWaitingCount(), "waiting while blocked, " + pool.getStats());
+		return borrower;
+	}
+
+}
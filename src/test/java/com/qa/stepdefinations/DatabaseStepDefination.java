@@ -0,0 +1,119 @@
+package com.qa.stepdefinations;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import com.qa.util.AsyncDbVerifier;
+import com.qa.util.DatabaseUtil;
+
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+
+public class DatabaseStepDefination {
+
+	/**
+	 * Streams generated rows of about 200 bytes each and samples the heap, after
+	 * a GC, every 50000 rows. Loading the same rows as a List of Maps takes
+	 * several times the bound.
+	 */
+	@Then("streaming {int} generated rows keeps the heap growth under {int} MB")
+	public void streaming_generated_rows_keeps_the_heap_growth_under_mb(Integer rows, Integer maxMb)
+			throws SQLException {
+		Runtime runtime = Runtime.getRuntime();
+		DatabaseUtil database = new DatabaseUtil();
+		try {
+			System.gc();
+			long baseline = runtime.totalMemory() - runtime.freeMemory();
+			long peak = 0;
+			long count = 0;
+			try (Stream<Map<String, Object>> stream = database
+					.streamQuery("SELECT X AS ID, REPEAT('x', 200) AS PAYLOAD FROM SYSTEM_RANGE(1, ?)", rows)) {
+				Iterator<Map<String, Object>> iterator = stream.iterator();
+				while (iterator.hasNext()) {
+					iterator.next();
+					if (++count % 50000 == 0) {
+						System.gc();
+						peak = Math.max(peak, runtime.totalMemory() - runtime.freeMemory() - baseline);
+					}
+				}
+			}
+			assertEquals(rows.longValue(), count, "Streamed rows");
+			assertTrue(peak < maxMb * 1024L * 1024L,
+					"Heap grew by " + peak / (1024 * 1024) + " MB while streaming, expected under " + maxMb + " MB");
+		} finally {
+			database.close();
+		}
+	}
+
+	/**
+	 * Commits the event from another thread after the delay, the way the
+	 * application under test would write it while the scenario moves on.
+	 */
+	@Given("the event {int} is committed as {string} after {int} ms")
+	public void the_event_is_committed_as_after_ms(final Integer id, final String status, final Integer delayMs) {
+		Thread writer = new Thread(() -> {
+			DatabaseUtil database = null;
+			try {
+				Thread.sleep(delayMs);
+				database = new DatabaseUtil();
+				database.executeBatch("DELETE FROM verify_events WHERE id = ?",
+						Collections.singletonList(new Object[] { id }), 1);
+				database.executeBatch("INSERT INTO verify_events (id, status) VALUES (?, ?)",
+						Collections.singletonList(new Object[] { id, status }), 1);
+			} catch (InterruptedException | SQLException e) {
+				System.out.println("Unable to commit event " + id + ": " + e.getMessage());
+			} finally {
+				if (database != null) {
+					database.close();
+				}
+			}
+		}, "event-writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	@When("the database check {string} expects event {int} to be {string}")
+	public void the_database_check_expects_event_to_be(String description, Integer id, String status) {
+		AsyncDbVerifier.shared().expectValue(description, status, "SELECT status FROM verify_events WHERE id = ?",
+				id);
+	}
+
+	/**
+	 * Same check with a short deadline, for checks that are meant to fail.
+	 */
+	@When("the database check {string} expects event {int} to be {string} within {int} ms")
+	public void the_database_check_expects_event_to_be_within_ms(String description, Integer id, String status,
+			Integer timeoutMs) {
+		new AsyncDbVerifier(1, 4, timeoutMs, 50, 200).expectValue(description, status,
+				"SELECT status FROM verify_events WHERE id = ?", id);
+	}
+
+	@Then("the background database checks hold")
+	public void the_background_database_checks_hold() {
+		AsyncDbVerifier.awaitPending();
+	}
+
+	/**
+	 * The failure must name the step that submitted the check, as numbered by
+	 * DbVerifyPlugin, and the check itself.
+	 */
+	@Then("the background database check {string} fails naming step {int} {string}")
+	public void the_background_database_check_fails_naming_step(String description, Integer stepIndex,
+			String step) {
+		AssertionError failure = assertThrows(AssertionError.class, AsyncDbVerifier::awaitPending);
+		for (String expected : Arrays.asList("step " + stepIndex + " '" + step + "'", description, "not met after")) {
+			assertTrue(failure.getMessage().contains(expected),
+					"Expected <" + expected + "> in the failure: " + failure.getMessage());
+		}
+	}
+
+}
@@ -0,0 +1,31 @@
+package com.qa.stepdefinations;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.sql.SQLException;
+
+import com.qa.util.DatabaseUtil;
+import com.qa.util.FixtureLoader;
+
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+
+public class DatasetStepDefination {
+
+	/**
+	 * Seed a CSV or YAML dataset from src/test/resources/fixtures (fixtures.dir)
+	 * inside the scenario's transaction; it is rolled back when the scenario
+	 * ends.
+	 */
+	@Given("the dataset {string} is loaded")
+	public void the_dataset_is_loaded(String dataset) throws SQLException {
+		new FixtureLoader(DatabaseUtil.forScenario()).load(dataset);
+	}
+
+	@Then("the table {string} has {int} rows")
+	public void the_table_has_rows(String table, Integer rows) throws SQLException {
+		Object count = DatabaseUtil.forScenario().getSingleValue("SELECT COUNT(*) FROM " + FixtureLoader.identifier(table));
+		assertEquals(rows.longValue(), ((Number) count).longValue());
+	}
+
+}
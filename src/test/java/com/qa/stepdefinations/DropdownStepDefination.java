@@ -0,0 +1,112 @@
+package com.qa.stepdefinations;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.ElementNotInteractableException;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.ui.Select;
+
+import com.qa.factory.DriverFactory;
+import com.qa.pages.BasePage;
+
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+
+/**
+ * Checks of the BasePage dropdown helpers against the selects of a page opened
+ * in the browser, e.g. fixtures/pages/dropdowns.html on the fixture server.
+ * Lists of options are given comma separated.
+ */
+public class DropdownStepDefination {
+
+	@When("user selects {string} by text in dropdown {string}")
+	public void user_selects_by_text_in_dropdown(String text, String id) {
+		page().selectDropdownByVisibleText(By.id(id), text);
+	}
+
+	@When("user selects {string} by value in dropdown {string}")
+	public void user_selects_by_value_in_dropdown(String value, String id) {
+		page().selectDropdownByValue(By.id(id), value);
+	}
+
+	@When("user selects index {int} in dropdown {string}")
+	public void user_selects_index_in_dropdown(Integer index, String id) {
+		page().selectDropdownByIndex(By.id(id), index);
+	}
+
+	@When("user selects only {string} by text in dropdown {string}")
+	public void user_selects_only_by_text_in_dropdown(String texts, String id) {
+		page().selectDropdownByVisibleTexts(By.id(id), split(texts));
+	}
+
+	@When("the page inserts option {string} with value {string} at the top of dropdown {string}")
+	public void the_page_inserts_option_at_the_top_of_dropdown(String text, String value, String id) {
+		script("var select = document.getElementById(arguments[0]);"
+				+ "select.insertBefore(new Option(arguments[1], arguments[2]), select.firstChild);", id, text, value);
+	}
+
+	@When("the page renames option {string} of dropdown {string} to {string}")
+	public void the_page_renames_option_of_dropdown(String text, String id, String newText) {
+		script("var options = document.getElementById(arguments[0]).options;"
+				+ "for (var i = 0; i < options.length; i++) {"
+				+ "  if (options[i].text === arguments[1]) { options[i].text = arguments[2]; } }", id, text, newText);
+	}
+
+	@Then("the dropdown {string} has the values {string} selected")
+	public void the_dropdown_has_the_values_selected(String id, String values) {
+		List<String> selected = new ArrayList<String>();
+		for (WebElement option : new Select(DriverFactory.getDriver().findElement(By.id(id)))
+				.getAllSelectedOptions()) {
+			selected.add(option.getAttribute("value"));
+		}
+		assertEquals(split(values), selected, "selected options of " + id);
+	}
+
+	/**
+	 * The option maps are built by the first selection; a change of the options
+	 * must mark them for a rebuild.
+	 */
+	@Then("the option cache of dropdown {string} is marked stale")
+	public void the_option_cache_of_dropdown_is_marked_stale(String id) {
+		assertEquals(Boolean.TRUE, script("var cache = document.getElementById(arguments[0]).__qaOptions;"
+				+ "return cache ? cache.dirty : null;", id), "option cache of " + id);
+	}
+
+	@Then("selecting {string} by text in dropdown {string} fails as a missing option")
+	public void selecting_by_text_fails_as_a_missing_option(String text, String id) {
+		assertThrows(NoSuchElementException.class, () -> page().selectDropdownByVisibleText(By.id(id), text));
+	}
+
+	@Then("selecting {string} by text in dropdown {string} fails as a disabled option")
+	public void selecting_by_text_fails_as_a_disabled_option(String text, String id) {
+		assertThrows(UnsupportedOperationException.class,
+				() -> page().selectDropdownByVisibleText(By.id(id), text));
+	}
+
+	@Then("selecting {string} by text in dropdown {string} fails as not interactable")
+	public void selecting_by_text_fails_as_not_interactable(String text, String id) {
+		assertThrows(ElementNotInteractableException.class,
+				() -> page().selectDropdownByVisibleText(By.id(id), text));
+	}
+
+	private static BasePage page() {
+		return new BasePage(DriverFactory.getDriver());
+	}
+
+	private static Object script(String script, Object... args) {
+		return ((JavascriptExecutor) DriverFactory.getDriver()).executeScript(script, args);
+	}
+
+	private static List<String> split(String list) {
+		return Arrays.asList(list.split("\\s*,\\s*"));
+	}
+
+}
@@ -14,35 +14,52 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 
 public class LoginStepDefination {
 
-	LoginPage objLoginPage = new LoginPage(DriverFactory.getDriver());
+	private LoginPage objLoginPage;
+
+	/**
+	 * Page objects are created on first use so they bind to the driver of the
+	 * thread running the current scenario.
+	 */
+	private LoginPage loginPage() {
+		if (objLoginPage == null) {
+			objLoginPage = new LoginPage(DriverFactory.getDriver());
+		}
+		return objLoginPage;
+	}
 
 	@Given("user is on the Software TestingBoard login page")
 	public void user_is_on_the_orange_hrm_login_page() {
-		objLoginPage.launchApp();
+		loginPage().launchApp();
 		System.out.println("Software TestingBoard Page is launched..");
 	}
 
+	@Given("user is logged in as {string} with password {string}")
+	public void user_is_logged_in_as(String userName, String passWord) {
+		loginPage().loginAs(userName, passWord);
+		System.out.println("User is logged in..");
+	}
+
 	@When("user enters username as {string}")
 	public void user_enters_username_as(String userName) {
-		objLoginPage.enterUsername(userName);
+		loginPage().enterUsername(userName);
 		System.out.println("UserName is entered..");
 	}
 
 	@When("user enters password as {string}")
 	public void user_enters_password_as(String passWord) {
-		objLoginPage.enterPassword(passWord);
+		loginPage().enterPassword(passWord);
 		System.out.println("Password is entered..");
 	}
 
 	@When("user clicks on the login button")
 	public void user_clicks_on_the_login_button() {
 
-		objLoginPage.clickLoginButton();
+		loginPage().clickLoginButton();
 	}
 
 	@Then("the page title of homepage should be {string}")
 	public void the_page_title_should_be(String expTitle) {
-		String actTitle = objLoginPage.getTitleOfHomePage();
+		String actTitle = loginPage().getTitleOfHomePage();
 		assertEquals(actTitle, expTitle, "Actual Title is not matching with the Expected title..!");
 		
 		System.out.println("Title of the HomePage is : " + actTitle);
@@ -51,7 +68,7 @@ public class LoginStepDefination {
 
 	@Then("verify it shows appropriate warning message {string}")
 	public void verify_it_shows_appropriate_warning_message(String expWarningMsg) {
-		String actWarningMsg = objLoginPage.getWarningMessage();
+		String actWarningMsg = loginPage().getWarningMessage();
 		System.out
 				.println("Expected Warning Message : " + expWarningMsg + " Actual Warning Message : " + actWarningMsg);
 
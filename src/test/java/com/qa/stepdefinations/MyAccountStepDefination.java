@@ -11,12 +11,20 @@ import io.cucumber.java.en.When;
 
 public class MyAccountStepDefination {
 
-	MyAccountPage objMyAccountPage = new MyAccountPage(DriverFactory.getDriver());
+	private MyAccountPage objMyAccountPage;
+
+	// created lazily, once per scenario, for the driver of the running thread
+	private MyAccountPage myAccountPage() {
+		if (objMyAccountPage == null) {
+			objMyAccountPage = new MyAccountPage(DriverFactory.getDriver());
+		}
+		return objMyAccountPage;
+	}
 
 	@When("user verify username as {string} and emailID as {string} under Contact Information")
 	public void user_select_tab_from_main_menu(String userName, String emailId) {
 
-		String actualInfo = objMyAccountPage.getContactInformation();
+		String actualInfo = myAccountPage().getContactInformation();
 
 		assertTrue(actualInfo.contains(userName));
 
@@ -0,0 +1,113 @@
+package com.qa.stepdefinations;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assume;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WrapsDriver;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.devtools.NetworkInterceptor;
+
+import com.qa.factory.AssetCache;
+import com.qa.factory.DriverFactory;
+import com.qa.factory.NetworkLayer;
+import com.qa.fixtures.DelayedFixtureServer;
+import com.qa.util.ConfigManager;
+
+import io.cucumber.java.After;
+import io.cucumber.java.Scenario;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+
+/**
+ * NetworkLayer checks against the fixture server. The layer is attached to
+ * the scenario's browser with its own, empty asset cache and detached, after
+ * logging what it saved per page, when the scenario ends; Chromium only.
+ */
+public class NetworkStepDefination {
+
+	private static final String FETCH_HEADER_SCRIPT = "var url = arguments[0], name = arguments[1], done = arguments[arguments.length - 1];"
+			+ "fetch(url).then(function(response) { done(response.headers.get(name)); },"
+			+ "  function(error) { done('fetch failed: ' + error); });";
+
+	private NetworkLayer layer;
+	private NetworkInterceptor interceptor;
+
+	@Given("the network layer blocks {string} and caches {string} assets")
+	public void the_network_layer_blocks_and_caches_assets(String patterns, String extensions) throws IOException {
+		WebDriver driver = DriverFactory.getDriver();
+		if (driver instanceof WrapsDriver) {
+			driver = ((WrapsDriver) driver).getWrappedDriver(); // DevTools needs the real driver
+		}
+		Assume.assumeTrue("Network interception needs a Chromium based browser", driver instanceof HasDevTools);
+		Assume.assumeFalse("The session already has a network layer (network.intercept.enabled)",
+				ConfigManager.get().getBoolean("network.intercept.enabled", false));
+		layer = new NetworkLayer(Arrays.asList(patterns.split("\\s*,\\s*")),
+				Arrays.asList(extensions.split("\\s*,\\s*")),
+				new AssetCache(Files.createTempDirectory("asset-cache"), 60));
+		interceptor = new NetworkInterceptor(driver, layer);
+	}
+
+	@Given("the fixture server request counts are reset")
+	public void the_fixture_server_request_counts_are_reset() throws IOException {
+		DelayedFixtureServer.shared().resetRequests();
+	}
+
+	@Then("the fixture server received {int} request(s) for {string}")
+	public void the_fixture_server_received_requests_for(Integer count, String path) throws IOException {
+		assertEquals(count.intValue(), DelayedFixtureServer.shared().getRequestCount(path),
+				"Requests for " + path + " that reached the server");
+	}
+
+	@Then("the network layer served {string} and {string} from its cache")
+	public void the_network_layer_served_from_its_cache(String first, String second) throws IOException {
+		DelayedFixtureServer server = DelayedFixtureServer.shared();
+		assertEquals(2, layer.getCacheHits(), "Assets served from the cache");
+		assertEquals(server.getBytesServed(first) + server.getBytesServed(second), layer.getBytesSaved(),
+				"Bytes reported as saved");
+		System.out.println(NetworkLayer.getTotals());
+	}
+
+	@Then("the cached asset {string} keeps its {string} header")
+	public void the_cached_asset_keeps_its_header(String path, String header) throws IOException {
+		long hits = layer.getCacheHits();
+		Object value = ((JavascriptExecutor) DriverFactory.getDriver()).executeAsyncScript(FETCH_HEADER_SCRIPT,
+				DelayedFixtureServer.shared().getBaseUrl() + path, header);
+		assertEquals(hits + 1, layer.getCacheHits(), path + " served from the cache");
+		assertEquals(path, value);
+	}
+
+	/**
+	 * Flushes the page reports, so the page still open must be among them.
+	 */
+	@Then("the network layer reports savings for {int} page(s) of {string}")
+	public void the_network_layer_reports_savings_for_pages(Integer count, String path) {
+		List<String> pages = layer.flushPages();
+		System.out.println(String.join("\n", pages));
+		assertEquals(count.intValue(), pages.size(), "Page reports: " + pages);
+		for (String page : pages) {
+			assertTrue(page.contains(path + ":"), page);
+		}
+	}
+
+	@After(order = 5)
+	public void detachNetworkLayer(Scenario scenario) {
+		List<String> pages = layer == null ? Collections.<String>emptyList() : layer.flushPages();
+		if (!pages.isEmpty()) {
+			scenario.log(String.join("\n", pages));
+		}
+		if (interceptor != null) {
+			interceptor.close();
+			interceptor = null;
+		}
+	}
+
+}
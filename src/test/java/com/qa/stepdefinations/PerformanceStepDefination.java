@@ -0,0 +1,71 @@
+package com.qa.stepdefinations;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.qa.factory.DriverFactory;
+import com.qa.factory.PagePerformance;
+import com.qa.fixtures.DelayedFixtureServer;
+
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+
+public class PerformanceStepDefination {
+
+	/**
+	 * Pages are named as they are captured: the page object's class name for
+	 * launchUrl (e.g. "LoginPage"), otherwise the url path.
+	 */
+	@Given("the performance budget for page {string} is {int} ms")
+	public void the_performance_budget_for_page_is_ms(String page, Integer loadMs) {
+		PagePerformance performance = PagePerformance.current();
+		if (performance == null) {
+			System.out.println("Page timings are disabled (perf.enabled), budget for " + page + " ignored");
+			return;
+		}
+		performance.setBudget(page, loadMs);
+	}
+
+	@Given("the fixture server delays pages by {int} ms and assets by {int} ms")
+	public void the_fixture_server_delays_pages_by_ms(Integer pageDelayMs, Integer assetDelayMs) throws IOException {
+		DelayedFixtureServer.shared().setDelays(pageDelayMs, assetDelayMs);
+	}
+
+	@When("user opens the fixture page {string}")
+	public void user_opens_the_fixture_page(String page) throws IOException {
+		DriverFactory.getDriver().get(DelayedFixtureServer.shared().getBaseUrl() + "/" + page);
+		PagePerformance.capture(DriverFactory.getDriver(), page);
+	}
+
+	@Then("the load time of page {string} is at least {int} ms")
+	public void the_load_time_of_page_is_at_least_ms(String page, Integer minimumMs) {
+		List<Long> loadTimes = PagePerformance.current().getLoadTimes(page);
+		assertFalse("No page timings captured for " + page, loadTimes.isEmpty());
+		for (Long loadTime : loadTimes) {
+			assertTrue(page + " loaded in " + loadTime + " ms, expected at least " + minimumMs, loadTime >= minimumMs);
+		}
+	}
+
+	/**
+	 * Checks the budget itself: the page must be reported over budget. The
+	 * budget is then lifted, so the violation does not fail the scenario when it
+	 * ends.
+	 */
+	@Then("the page {string} is reported over its performance budget")
+	public void the_page_is_reported_over_its_performance_budget(String page) {
+		PagePerformance performance = PagePerformance.current();
+		assertTrue("Page timings are disabled (perf.enabled)", performance != null);
+		List<String> violations = performance.getBudgetViolations();
+		boolean reported = false;
+		for (String violation : violations) {
+			reported |= violation.startsWith(page + " took ");
+		}
+		assertTrue(page + " was not reported over its budget, violations: " + violations, reported);
+		performance.setBudget(page, Long.MAX_VALUE);
+	}
+
+}
@@ -0,0 +1,84 @@
+package com.qa.stepdefinations;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import org.openqa.selenium.WebDriver;
+
+import com.qa.factory.DriverFactory;
+import com.qa.factory.SessionCache;
+import com.qa.fixtures.DelayedFixtureServer;
+import com.qa.pages.LoginPage;
+
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+
+/**
+ * Session cache checks against the stub login of the fixture server, so the
+ * number of form logins can be counted. They use a cache of their own, enabled
+ * whatever session.cache.enabled says.
+ */
+public class SessionStepDefination {
+
+	private static volatile SessionCache sessions = new SessionCache(true, 30);
+
+	@Given("the fixture login has no sessions")
+	public void the_fixture_login_has_no_sessions() throws IOException {
+		DelayedFixtureServer.shared().resetLogins();
+		sessions = new SessionCache(true, 30);
+	}
+
+	@When("user logs in to the fixture login as {string} with password {string}")
+	public void user_logs_in_to_the_fixture_login_as(String userName, String passWord) throws IOException {
+		new FixtureLoginPage(DriverFactory.getDriver()).loginAs(userName, passWord, sessions);
+	}
+
+	/**
+	 * Start over as a new scenario would, in a browser without the session.
+	 */
+	@When("the browser forgets its cookies")
+	public void the_browser_forgets_its_cookies() {
+		DriverFactory.getDriver().manage().deleteAllCookies();
+	}
+
+	@When("the fixture login expires every session")
+	public void the_fixture_login_expires_every_session() throws IOException {
+		DelayedFixtureServer.shared().expireSessions();
+	}
+
+	@Then("the fixture login shows {string} after {int} form login(s)")
+	public void the_fixture_login_shows_after_form_logins(String title, Integer formLogins) throws IOException {
+		assertEquals(title, DriverFactory.getDriver().getTitle());
+		assertEquals(formLogins.intValue(), DelayedFixtureServer.shared().getFormLogins(),
+				"Successful logins through the form");
+	}
+
+	@Then("the fixture login rejected {int} password(s)")
+	public void the_fixture_login_rejected_passwords(Integer rejected) throws IOException {
+		assertEquals(rejected.intValue(), DelayedFixtureServer.shared().getRejectedLogins(),
+				"Logins through the form with a wrong password");
+	}
+
+	/**
+	 * The application's login page, opened on the fixture server.
+	 */
+	private static final class FixtureLoginPage extends LoginPage {
+
+		FixtureLoginPage(WebDriver driver) {
+			super(driver);
+		}
+
+		@Override
+		public String getUrl() {
+			try {
+				return DelayedFixtureServer.shared().getBaseUrl() + "/account/login";
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+}
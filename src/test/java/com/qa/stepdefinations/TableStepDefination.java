@@ -0,0 +1,100 @@
+package com.qa.stepdefinations;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import com.qa.factory.CommandMetrics;
+import com.qa.factory.DriverFactory;
+import com.qa.pages.BasePage;
+import com.qa.pages.TableData;
+
+import io.cucumber.datatable.DataTable;
+import io.cucumber.java.en.Then;
+
+/**
+ * Checks of the BasePage table helpers against the tables of a page opened in
+ * the browser, e.g. fixtures/pages/tables.html on the fixture server.
+ */
+public class TableStepDefination {
+
+	@Then("the page table {string} reads:")
+	public void the_page_table_reads(String id, DataTable expected) {
+		assertTable(expected, new BasePage(DriverFactory.getDriver()).readTable(By.id(id)));
+	}
+
+	@Then("the columns {string} of page table {string} read:")
+	public void the_columns_of_page_table_read(String headers, String id, DataTable expected) {
+		assertTable(expected,
+				new BasePage(DriverFactory.getDriver()).readTable(By.id(id), headers.split("\\s*,\\s*")));
+	}
+
+	/**
+	 * Rows are counted as tr elements including the header rows, columns as td
+	 * cells.
+	 */
+	@Then("the cell at row {int} column {int} of page table {string} is {string}")
+	public void the_cell_of_page_table_is(Integer row, Integer column, String id, String text) {
+		assertEquals(text, new BasePage(DriverFactory.getDriver()).getCellText(By.id(id), row, column));
+	}
+
+	/**
+	 * Compares the driver commands the one-script readTable issues with those of
+	 * the per-cell walk it replaced, counted by the scenario's CommandMetrics.
+	 */
+	@Then("reading page table {string} takes at most {int} driver commands against {int} for the per-cell walk")
+	public void reading_page_table_takes_commands(String id, Integer maxCommands, Integer walkCommands) {
+		BasePage page = new BasePage(DriverFactory.getDriver());
+		int readCommands = countCommands(() -> page.readTable(By.id(id)));
+		int cellWalkCommands = countCommands(() -> legacyCellWalk(DriverFactory.getDriver(), By.id(id)));
+		assertTrue(readCommands <= maxCommands,
+				"readTable of " + id + " took " + readCommands + " commands, expected at most " + maxCommands);
+		assertEquals(walkCommands.intValue(), cellWalkCommands, "per-cell walk of " + id);
+	}
+
+	@Then("reading the cell at row {int} column {int} of page table {string} takes at most {int} driver commands")
+	public void reading_the_cell_takes_commands(Integer row, Integer column, String id, Integer maxCommands) {
+		BasePage page = new BasePage(DriverFactory.getDriver());
+		int commands = countCommands(() -> page.getCellText(By.id(id), row, column));
+		assertTrue(commands <= maxCommands,
+				"getCellText of " + id + " took " + commands + " commands, expected at most " + maxCommands);
+	}
+
+	/**
+	 * The pre-script way of reading a table: one command per row and per cell.
+	 */
+	private static List<String> legacyCellWalk(WebDriver driver, By tableLocator) {
+		List<String> texts = new ArrayList<String>();
+		List<WebElement> tableRows = driver.findElement(tableLocator).findElements(By.tagName("tr"));
+		for (int row = 1; row < tableRows.size(); row++) {
+			for (WebElement cell : tableRows.get(row).findElements(By.tagName("td"))) {
+				texts.add(cell.getText());
+			}
+		}
+		return texts;
+	}
+
+	private static int countCommands(Runnable action) {
+		CommandMetrics metrics = CommandMetrics.current();
+		assertTrue(metrics != null, "command metrics are not recorded for this scenario");
+		int before = metrics.getCommandCount();
+		action.run();
+		return metrics.getCommandCount() - before;
+	}
+
+	/**
+	 * The first row of the expected table holds the headers.
+	 */
+	private static void assertTable(DataTable expected, TableData actual) {
+		List<List<String>> rows = new ArrayList<List<String>>(expected.asLists());
+		assertEquals(rows.remove(0), actual.getHeaders());
+		assertEquals(rows, actual.getRows());
+	}
+
+}
@@ -0,0 +1,450 @@
+package com.qa.testrunner;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.json.JsonException;
+
+import io.cucumber.junit.CucumberOptions;
+import io.cucumber.tagexpressions.Expression;
+import io.cucumber.tagexpressions.TagExpressionParser;
+
+/**
+ * Splits the scenarios of the feature files into N shards of similar run time.
+ * Durations come from the scenario event logs of previous runs (see
+ * com.qa.plugins.EventLogPlugin); scenarios are assigned longest first to the
+ * least loaded shard. Without any history whole features are balanced by their
+ * number of scenarios instead. Only scenarios the runner will run are
+ * planned: those matching --tags, else cucumber.filter.tags, else the tags of
+ * {@link TestRunner}. The plan for shard K is written as a Cucumber rerun file,
+ * to be run with -Dcucumber.features=@&lt;file&gt;.
+ *
+ * <pre>
+ * ShardPlanner --shards 4 --index 1 [--features src/test/resources/features]
+ *              [--history target/events] [--out target] [--tags "@Test and not @wip"]
+ * ShardPlanner --shards 4 --simulate [--synthetic 40]
+ * </pre>
+ *
+ * --synthetic simulates a generated suite with a fixed seed instead of the
+ * feature files and history, so the comparison can be reproduced anywhere.
+ */
+public class ShardPlanner {
+
+	private final Map<String, Double> history;
+
+	ShardPlanner(Map<String, Double> history) {
+		this.history = history;
+	}
+
+	public static void main(String[] args) throws IOException {
+		Map<String, String> options = parseOptions(args);
+		int shards = Integer.parseInt(options.getOrDefault("shards", "1"));
+		if (options.containsKey("synthetic")) {
+			List<Scenario> scenarios = syntheticScenarios(Integer.parseInt(options.get("synthetic")));
+			ShardPlanner planner = new ShardPlanner(syntheticHistory(scenarios, 1L));
+			planner.simulate(planner.units(scenarios), shards);
+			return;
+		}
+		Path features = Paths.get(options.getOrDefault("features", "src/test/resources/features"));
+		Path out = Paths.get(options.getOrDefault("out", "target"));
+		List<Path> historyDirs = new ArrayList<Path>();
+		for (String dir : options.getOrDefault("history", "target/events").split(",")) {
+			historyDirs.add(Paths.get(dir.trim()));
+		}
+
+		String tags = tagFilter(options.get("tags"));
+		System.out.println("Planning scenarios matching tags: " + (tags.isEmpty() ? "(all)" : tags));
+
+		ShardPlanner planner = new ShardPlanner(readHistory(historyDirs));
+		List<Unit> units = planner.units(readScenarios(features, TagExpressionParser.parse(tags)));
+		if (options.containsKey("simulate")) {
+			planner.simulate(units, shards);
+			return;
+		}
+		List<List<Unit>> plan = planner.plan(units, shards);
+		Files.createDirectories(out);
+		for (int shard = 1; shard <= shards; shard++) {
+			if (options.containsKey("index") && Integer.parseInt(options.get("index")) != shard) {
+				continue;
+			}
+			Path file = out.resolve("shard-" + shard + ".txt");
+			Files.write(file, toRerunLines(plan.get(shard - 1)), StandardCharsets.UTF_8);
+			System.out.println(String.format("Shard %d/%d: %d scenarios, estimated %s -> %s", shard, shards,
+					countScenarios(plan.get(shard - 1)), planner.format(load(plan.get(shard - 1))), file));
+		}
+	}
+
+	/**
+	 * Turn scenarios into the units that are packed: single scenarios when any
+	 * history exists, otherwise whole features weighted by scenario count.
+	 */
+	List<Unit> units(List<Scenario> scenarios) {
+		List<Unit> units = new ArrayList<Unit>();
+		if (history.isEmpty()) {
+			Map<String, List<Scenario>> byFeature = new LinkedHashMap<String, List<Scenario>>();
+			for (Scenario scenario : scenarios) {
+				byFeature.computeIfAbsent(scenario.feature, key -> new ArrayList<Scenario>()).add(scenario);
+			}
+			for (List<Scenario> featureScenarios : byFeature.values()) {
+				units.add(new Unit(featureScenarios, featureScenarios.size()));
+			}
+			return units;
+		}
+		double known = 0;
+		int knownCount = 0;
+		for (Scenario scenario : scenarios) {
+			Double duration = history.get(scenario.key());
+			if (duration != null) {
+				known += duration;
+				knownCount++;
+			}
+		}
+		// scenarios without history are assumed to take the average of those with
+		double estimate = knownCount == 0 ? 1 : known / knownCount;
+		for (Scenario scenario : scenarios) {
+			units.add(new Unit(Collections.singletonList(scenario), history.getOrDefault(scenario.key(), estimate)));
+		}
+		return units;
+	}
+
+	/**
+	 * Longest processing time first: each unit goes to the shard with the least
+	 * estimated run time so far.
+	 */
+	List<List<Unit>> plan(List<Unit> units, int shards) {
+		List<List<Unit>> plan = new ArrayList<List<Unit>>();
+		PriorityQueue<Integer> leastLoaded = new PriorityQueue<Integer>(Math.max(1, shards),
+				Comparator.comparingDouble((Integer shard) -> load(plan.get(shard))).thenComparing(shard -> shard));
+		for (int shard = 0; shard < shards; shard++) {
+			plan.add(new ArrayList<Unit>());
+			leastLoaded.add(shard);
+		}
+		List<Unit> longestFirst = new ArrayList<Unit>(units);
+		longestFirst.sort(Comparator.comparingDouble((Unit unit) -> unit.weight).reversed());
+		for (Unit unit : longestFirst) {
+			int shard = leastLoaded.poll();
+			plan.get(shard).add(unit);
+			leastLoaded.add(shard);
+		}
+		return plan;
+	}
+
+	/**
+	 * Compare the makespan (slowest shard) of the plan with splitting the
+	 * scenarios into equal sized consecutive chunks, which is what splitting by
+	 * hand usually amounts to.
+	 */
+	void simulate(List<Unit> units, int shards) {
+		List<List<Unit>> naive = new ArrayList<List<Unit>>();
+		int chunk = (units.size() + shards - 1) / Math.max(1, shards);
+		for (int shard = 0; shard < shards; shard++) {
+			int from = Math.min(units.size(), shard * chunk);
+			naive.add(units.subList(from, Math.min(units.size(), from + chunk)));
+		}
+		List<List<Unit>> balanced = plan(units, shards);
+		double total = load(units);
+		System.out.println(String.format("%d units, total %s over %d shards (ideal %s)", units.size(), format(total),
+				shards, format(total / shards)));
+		print("Naive split", naive);
+		print("Planned", balanced);
+	}
+
+	private void print(String label, List<List<Unit>> plan) {
+		double makespan = 0;
+		StringBuilder loads = new StringBuilder();
+		for (List<Unit> shard : plan) {
+			makespan = Math.max(makespan, load(shard));
+			loads.append(' ').append(format(load(shard)));
+		}
+		System.out.println(String.format("%-12s makespan %s, shard loads:%s", label, format(makespan), loads));
+	}
+
+	/**
+	 * Weights are milliseconds with history and scenario counts without.
+	 */
+	private String format(double weight) {
+		return history.isEmpty() ? String.format("%.0f scenarios", weight) : String.format("%.1f s", weight / 1000);
+	}
+
+	private static double load(List<Unit> units) {
+		double load = 0;
+		for (Unit unit : units) {
+			load += unit.weight;
+		}
+		return load;
+	}
+
+	private static int countScenarios(List<Unit> units) {
+		int count = 0;
+		for (Unit unit : units) {
+			count += unit.scenarios.size();
+		}
+		return count;
+	}
+
+	/**
+	 * One line per feature file: path:line:line...
+	 */
+	private static List<String> toRerunLines(List<Unit> units) {
+		Map<String, List<Integer>> lines = new TreeMap<String, List<Integer>>();
+		for (Unit unit : units) {
+			for (Scenario scenario : unit.scenarios) {
+				lines.computeIfAbsent(scenario.path, key -> new ArrayList<Integer>()).add(scenario.line);
+			}
+		}
+		List<String> rerun = new ArrayList<String>();
+		for (Map.Entry<String, List<Integer>> feature : lines.entrySet()) {
+			StringBuilder line = new StringBuilder(feature.getKey());
+			Collections.sort(feature.getValue());
+			for (int scenarioLine : feature.getValue()) {
+				line.append(':').append(scenarioLine);
+			}
+			rerun.add(line.toString());
+		}
+		return rerun;
+	}
+
+	/**
+	 * Average scenario duration in milliseconds by feature file name and line,
+	 * over every event log found in the directories and their run directories.
+	 */
+	static Map<String, Double> readHistory(List<Path> directories) throws IOException {
+		Map<String, double[]> sums = new HashMap<String, double[]>();
+		Json json = new Json();
+		for (Path directory : directories) {
+			if (!Files.isDirectory(directory)) {
+				continue;
+			}
+			List<Path> logs = new ArrayList<Path>();
+			try (Stream<Path> walk = Files.walk(directory)) {
+				walk.filter(path -> path.toString().endsWith(".jsonl")).sorted().forEach(logs::add);
+			}
+			for (Path log : logs) {
+				try (BufferedReader reader = Files.newBufferedReader(log, StandardCharsets.UTF_8)) {
+					String line;
+					while ((line = reader.readLine()) != null) {
+						if (line.trim().isEmpty()) {
+							continue;
+						}
+						try {
+							Map<String, Object> record = json.toType(line, Json.MAP_TYPE);
+							String key = Scenario.key(String.valueOf(record.get("feature")),
+									((Number) record.get("line")).intValue());
+							double[] sum = sums.computeIfAbsent(key, k -> new double[2]);
+							sum[0] += ((Number) record.get("durationMs")).doubleValue();
+							sum[1]++;
+						} catch (JsonException | ClassCastException | NullPointerException e) {
+							System.out.println("Skipping unreadable history line in " + log);
+						}
+					}
+				}
+			}
+		}
+		Map<String, Double> averages = new HashMap<String, Double>();
+		for (Map.Entry<String, double[]> sum : sums.entrySet()) {
+			averages.put(sum.getKey(), sum.getValue()[0] / sum.getValue()[1]);
+		}
+		return averages;
+	}
+
+	/**
+	 * The tag expression Cucumber will filter with: the option, else the
+	 * cucumber.filter.tags property, which overrides the runner's own tags.
+	 */
+	static String tagFilter(String option) {
+		if (option != null && !option.equals("true")) {
+			return option.trim();
+		}
+		String property = System.getProperty("cucumber.filter.tags");
+		if (property != null && !property.trim().isEmpty() && !property.contains("${")) {
+			return property.trim();
+		}
+		CucumberOptions runner = TestRunner.class.getAnnotation(CucumberOptions.class);
+		return runner == null ? "" : runner.tags().trim();
+	}
+
+	/**
+	 * Every scenario, and every example row of a scenario outline, in the
+	 * feature files under the directory whose tags match the filter, in file
+	 * order. Tags are inherited from the feature, rule, outline and examples
+	 * block as Cucumber does.
+	 */
+	static List<Scenario> readScenarios(Path directory, Expression filter) throws IOException {
+		List<Path> files = new ArrayList<Path>();
+		try (Stream<Path> walk = Files.walk(directory)) {
+			walk.filter(path -> path.toString().endsWith(".feature")).sorted().forEach(files::add);
+		}
+		List<Scenario> scenarios = new ArrayList<Scenario>();
+		for (Path file : files) {
+			String path = file.toString().replace('\\', '/');
+			boolean inOutline = false;
+			boolean inExamples = false;
+			boolean headerSeen = false;
+			List<String> pending = new ArrayList<String>();
+			List<String> featureTags = new ArrayList<String>();
+			List<String> ruleTags = new ArrayList<String>();
+			List<String> scenarioTags = new ArrayList<String>();
+			List<String> examplesTags = new ArrayList<String>();
+			List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+			for (int i = 0; i < lines.size(); i++) {
+				String text = lines.get(i).trim();
+				if (text.startsWith("@")) {
+					for (String tag : text.replaceFirst("\\s#.*$", "").split("\\s+")) {
+						if (tag.startsWith("@")) {
+							pending.add(tag);
+						}
+					}
+					continue;
+				}
+				if (text.startsWith("Feature:")) {
+					featureTags = pending;
+				} else if (text.startsWith("Rule:")) {
+					ruleTags = pending;
+					inOutline = false;
+					inExamples = false;
+				} else if (text.startsWith("Scenario Outline:") || text.startsWith("Scenario Template:")) {
+					scenarioTags = pending;
+					inOutline = true;
+					inExamples = false;
+				} else if (text.startsWith("Scenario:") || text.startsWith("Example:")) {
+					scenarioTags = pending;
+					inOutline = false;
+					inExamples = false;
+					if (filter.evaluate(tagsOf(featureTags, ruleTags, scenarioTags, Collections.<String>emptyList()))) {
+						scenarios.add(new Scenario(path, i + 1));
+					}
+				} else if (inOutline && (text.startsWith("Examples:") || text.startsWith("Scenarios:"))) {
+					examplesTags = pending;
+					inExamples = true;
+					headerSeen = false;
+				} else if (inExamples && text.startsWith("|")) {
+					if (headerSeen && filter.evaluate(tagsOf(featureTags, ruleTags, scenarioTags, examplesTags))) {
+						scenarios.add(new Scenario(path, i + 1));
+					}
+					headerSeen = true;
+				} else if (inExamples && !text.isEmpty() && !text.startsWith("#")) {
+					inExamples = false;
+				}
+				if (!text.isEmpty() && !text.startsWith("#")) {
+					pending = new ArrayList<String>(); // tags only belong to the keyword right after them
+				}
+			}
+		}
+		return scenarios;
+	}
+
+	@SafeVarargs
+	private static List<String> tagsOf(List<String>... levels) {
+		List<String> tags = new ArrayList<String>();
+		for (List<String> level : levels) {
+			tags.addAll(level);
+		}
+		return tags;
+	}
+
+	/**
+	 * One feature of generated scenarios, for a reproducible --simulate.
+	 */
+	static List<Scenario> syntheticScenarios(int count) {
+		List<Scenario> scenarios = new ArrayList<Scenario>();
+		for (int i = 0; i < count; i++) {
+			scenarios.add(new Scenario("synthetic/suite.feature", 3 + i * 5));
+		}
+		return scenarios;
+	}
+
+	/**
+	 * Durations shaped like a typical suite: the first tenth of the scenarios
+	 * (end-to-end journeys, usually written first) take 60 to 90 s, the rest 5
+	 * to 20 s.
+	 *
+	 * @param seed the same seed gives the same durations
+	 */
+	static Map<String, Double> syntheticHistory(List<Scenario> scenarios, long seed) {
+		Random random = new Random(seed);
+		Map<String, Double> history = new HashMap<String, Double>();
+		int longCount = Math.max(1, scenarios.size() / 10);
+		for (int i = 0; i < scenarios.size(); i++) {
+			double seconds = i < longCount ? 60 + random.nextInt(31) : 5 + random.nextInt(16);
+			history.put(scenarios.get(i).key(), seconds * 1000);
+		}
+		return history;
+	}
+
+	private static Map<String, String> parseOptions(String[] args) {
+		Map<String, String> options = new HashMap<String, String>();
+		for (int i = 0; i < args.length; i++) {
+			if (!args[i].startsWith("-")) {
+				continue;
+			}
+			String name = args[i].replaceFirst("^-+", ""); // --shards or -shards
+			if (i + 1 < args.length && !args[i + 1].startsWith("-")) {
+				options.put(name, args[++i]);
+			} else {
+				options.put(name, "true");
+			}
+		}
+		return options;
+	}
+
+	/**
+	 * A runnable scenario: a feature file and the line of the scenario or of
+	 * its example row.
+	 */
+	static final class Scenario {
+
+		private final String path;
+		private final String feature;
+		private final int line;
+
+		Scenario(String path, int line) {
+			this.path = path;
+			this.feature = path.substring(path.lastIndexOf('/') + 1);
+			this.line = line;
+		}
+
+		String key() {
+			return feature + ":" + line;
+		}
+
+		/**
+		 * History is matched on file name and line, since event logs hold the
+		 * feature's URI and that differs between machines.
+		 */
+		static String key(String uri, int line) {
+			return uri.substring(uri.lastIndexOf('/') + 1) + ":" + line;
+		}
+	}
+
+	/**
+	 * What is packed into shards: one scenario, or a whole feature without
+	 * history.
+	 */
+	static final class Unit {
+
+		private final List<Scenario> scenarios;
+		private final double weight;
+
+		Unit(List<Scenario> scenarios, double weight) {
+			this.scenarios = scenarios;
+			this.weight = weight;
+		}
+	}
+
+}
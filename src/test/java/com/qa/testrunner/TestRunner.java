@@ -8,7 +8,10 @@ import io.cucumber.junit.CucumberOptions;
 @RunWith(Cucumber.class)
 @CucumberOptions(features = "src/test/resources/features", glue = { "com.qa.stepdefinations",
 		"com.qa.apphooks" }, plugin = { "pretty",
-				"com.aventstack.extentreports.cucumber.adapter.ExtentCucumberAdapter:" }, 
+				"com.aventstack.extentreports.cucumber.adapter.ExtentCucumberAdapter:",
+				"com.qa.plugins.CommandMetricsPlugin", "com.qa.plugins.DbVerifyPlugin",
+				"com.qa.plugins.EventLogPlugin:target/events",
+				"rerun:target/rerun.txt" }, 
 		tags = "@Test")
 public class TestRunner {
 
@@ -0,0 +1,34 @@
+Feature: Database access against an embedded H2 database
+
+  # mvn test -Ph2 -Dcucumber.filter.tags=@h2
+  @h2
+  Scenario: Large results are streamed without holding them in memory
+    Then streaming 500000 generated rows keeps the heap growth under 64 MB
+
+  @h2
+  Scenario: A background database check holds once the row is committed
+    Given the event 1 is committed as "STORED" after 500 ms
+    When the database check "event 1 is stored" expects event 1 to be "STORED"
+    Then the background database checks hold
+
+  @h2
+  Scenario: A failed background database check names the step that submitted it
+    Given the event 2 is committed as "NEW" after 0 ms
+    When the database check "event 2 is shipped" expects event 2 to be "SHIPPED" within 500 ms
+    Then the background database check "event 2 is shipped" fails naming step 2 'When the database check "event 2 is shipped" expects event 2 to be "SHIPPED" within 500 ms'
+
+  @h2
+  Scenario: The connection pool reuses connections and statements and bounds its borrowers
+    Given a connection pool of 2 connections with 2 cached statements and a 300 ms borrow timeout
+    When 2 connections are borrowed from the pool
+    Then the pool has 2 active, 0 idle and 0 waiting connections
+    And borrowing from the exhausted pool waits and fails after 300 ms
+    When the last borrowed connection prepares "SELECT CAST(? AS INT)"
+    And the last borrowed connection is released
+    Then the pool has 1 active, 1 idle and 0 waiting connections
+    When 1 connection is borrowed from the pool
+    Then the pool has 2 active, 0 idle and 0 waiting connections
+    And the last borrowed connection reuses its statement for "SELECT CAST(? AS INT)"
+    And preparing 2 other queries evicts and closes the statement for "SELECT CAST(? AS INT)"
+    And a borrower waiting on the exhausted pool gets the next released connection
+    And the pool has 2 active, 0 idle and 0 waiting connections
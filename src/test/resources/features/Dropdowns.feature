@@ -0,0 +1,31 @@
+Feature: Selecting dropdown options in one script against a local fixture page
+
+  # mvn test -Dcucumber.filter.tags=@fixture
+  @fixture
+  Scenario: A large select is looked up again after its options change
+    Given the fixture server delays pages by 0 ms and assets by 0 ms
+    When user opens the fixture page "dropdowns.html"
+    And user selects "Item 1500" by text in dropdown "large"
+    Then the dropdown "large" has the values "item-1500" selected
+    When the page inserts option "Item 0" with value "item-0" at the top of dropdown "large"
+    And the page renames option "Item 1999" of dropdown "large" to "Item 1999 (sold out)"
+    Then the option cache of dropdown "large" is marked stale
+    And selecting "Item 1999" by text in dropdown "large" fails as a missing option
+    When user selects "Item 1999 (sold out)" by text in dropdown "large"
+    Then the dropdown "large" has the values "item-1999" selected
+    When user selects index 0 in dropdown "large"
+    Then the dropdown "large" has the values "item-0" selected
+    When user selects "item-2000" by value in dropdown "large"
+    Then the dropdown "large" has the values "item-2000" selected
+
+  @fixture
+  Scenario: Multiple selects, disabled options and disabled selects
+    Given the fixture server delays pages by 0 ms and assets by 0 ms
+    When user opens the fixture page "dropdowns.html"
+    And user selects only "Red, Blue" by text in dropdown "colours"
+    Then the dropdown "colours" has the values "red, blue" selected
+    When user selects only "Green" by text in dropdown "colours"
+    Then the dropdown "colours" has the values "green, lime" selected
+    And selecting "Black" by text in dropdown "colours" fails as a disabled option
+    And selecting "Other" by text in dropdown "locked" fails as not interactable
+    And the dropdown "locked" has the values "only" selected
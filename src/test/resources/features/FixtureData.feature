@@ -0,0 +1,17 @@
+Feature: Test data seeded from datasets is rolled back after each scenario
+
+  # mvn test -Ph2 -Dcucumber.filter.tags=@h2
+  @h2
+  Scenario: CSV and YAML datasets are loaded into the scenario's transaction
+    Given the dataset "customers.csv" is loaded
+    And the dataset "orders.yml" is loaded
+    Then the table "customers" has 3 rows
+    And the table "orders" has 3 rows
+
+  @h2
+  Scenario: The rows of the previous scenario were rolled back
+    Then the table "orders" has 0 rows
+    And the table "customers" has 0 rows
+    # the same ids load again without primary key conflicts
+    Given the dataset "customers.csv" is loaded
+    Then the table "customers" has 3 rows
@@ -0,0 +1,18 @@
+Feature: Blocking requests and caching static assets in the browser's network layer
+
+  # mvn test -Dcucumber.filter.tags=@fixture (Chrome)
+  @fixture
+  Scenario: Blocked requests never reach the server and repeated assets come from the cache
+    Given the network layer blocks "/tracker/" and caches "css,js" assets
+    And the fixture server delays pages by 0 ms and assets by 0 ms
+    And the fixture server request counts are reset
+    When user opens the fixture page "network.html"
+    And user opens the fixture page "network.html"
+    Then the fixture server received 2 requests for "/network.html"
+    And the fixture server received 0 requests for "/tracker/collect.js"
+    And the fixture server received 0 requests for "/tracker/pixel.svg"
+    And the fixture server received 1 request for "/static/app.css"
+    And the fixture server received 1 request for "/static/app.js"
+    And the network layer served "/static/app.css" and "/static/app.js" from its cache
+    And the cached asset "/static/app.js" keeps its "X-Fixture-Path" header
+    And the network layer reports savings for 2 pages of "/network.html"
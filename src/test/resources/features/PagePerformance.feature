@@ -0,0 +1,16 @@
+Feature: Page timings and performance budgets against a local fixture server
+
+  # mvn test -Dcucumber.filter.tags=@perf
+  @perf
+  Scenario: Page timings include the server's response delay
+    Given the fixture server delays pages by 800 ms and assets by 300 ms
+    And the performance budget for page "checkout" is 5000 ms
+    When user opens the fixture page "checkout"
+    Then the load time of page "checkout" is at least 1100 ms
+
+  @perf
+  Scenario: A page slower than its budget is reported as a violation
+    Given the fixture server delays pages by 800 ms and assets by 300 ms
+    And the performance budget for page "checkout" is 500 ms
+    When user opens the fixture page "checkout"
+    Then the page "checkout" is reported over its performance budget
@@ -0,0 +1,28 @@
+Feature: Reusing login sessions against the fixture server's stub login
+
+  # mvn test -Dcucumber.filter.tags=@fixture
+  @fixture
+  Scenario: The first login uses the form, later ones the cached session until it is rejected
+    Given the fixture login has no sessions
+    When user logs in to the fixture login as "alice@example.com" with password "secret"
+    Then the fixture login shows "My Account" after 1 form login
+    When the browser forgets its cookies
+    And user logs in to the fixture login as "alice@example.com" with password "secret"
+    Then the fixture login shows "My Account" after 1 form login
+    When the browser forgets its cookies
+    And the fixture login expires every session
+    And user logs in to the fixture login as "alice@example.com" with password "secret"
+    Then the fixture login shows "My Account" after 2 form logins
+
+  @fixture
+  Scenario: A cached session is neither reused for a wrong password nor captured from a failed login
+    Given the fixture login has no sessions
+    When user logs in to the fixture login as "alice@example.com" with password "secret"
+    Then the fixture login shows "My Account" after 1 form login
+    When the browser forgets its cookies
+    And user logs in to the fixture login as "alice@example.com" with password "wrong"
+    Then the fixture login shows "Customer Login" after 1 form login
+    And the fixture login rejected 1 password
+    When user logs in to the fixture login as "alice@example.com" with password "wrong"
+    Then the fixture login shows "Customer Login" after 1 form login
+    And the fixture login rejected 2 passwords
@@ -0,0 +1,34 @@
+Feature: Reading tables in one script against a local fixture page
+
+  # mvn test -Dcucumber.filter.tags=@fixture
+  @fixture
+  Scenario: Whole tables, projected columns and single cells
+    Given the fixture server delays pages by 0 ms and assets by 0 ms
+    When user opens the fixture page "tables.html"
+    Then the page table "orders" reads:
+      | Order | Customer    | Total     | Status    |
+      | 1001  | Alice Smith | 1,250.00  | Shipped   |
+      | 1002  | Bob Jones   | 99.90     | Pending   |
+      | 1003  | Carol White | 12,000.50 | Cancelled |
+    And the columns "Total, Order" of page table "orders" read:
+      | Total     | Order |
+      | 1,250.00  | 1001  |
+      | 99.90     | 1002  |
+      | 12,000.50 | 1003  |
+    And the page table "stock" reads:
+      | Sku | Quantity |
+      | A-1 | 7        |
+      | B-2 | 0        |
+    And the cell at row 3 column 1 of page table "orders" is "Bob Jones"
+    And the cell at row 1 column 0 of page table "stock" is "A-1"
+
+  # The legacy walk costs one findElement and findElements for the table, one
+  # findElements per row and one getText per cell; the script path costs the
+  # visibility wait (findElement, isDisplayed) plus a single script.
+  @fixture
+  Scenario: One script instead of a command per cell
+    Given the fixture server delays pages by 0 ms and assets by 0 ms
+    When user opens the fixture page "tables.html"
+    Then reading page table "orders" takes at most 3 driver commands against 18 for the per-cell walk
+    And reading page table "stock" takes at most 3 driver commands against 8 for the per-cell walk
+    And reading the cell at row 3 column 1 of page table "orders" takes at most 3 driver commands
@@ -0,0 +1,21 @@
+-- Tables of the fixture datasets, created by the h2 profile's db.url (INIT=RUNSCRIPT)
+-- on every new connection, so only IF NOT EXISTS statements belong here.
+CREATE TABLE IF NOT EXISTS customers (
+	id INT PRIMARY KEY,
+	name VARCHAR(100) NOT NULL,
+	email VARCHAR(200) NOT NULL,
+	city VARCHAR(100)
+);
+
+CREATE TABLE IF NOT EXISTS orders (
+	id INT PRIMARY KEY,
+	customer_id INT NOT NULL REFERENCES customers (id),
+	status VARCHAR(20) NOT NULL,
+	total DECIMAL(10, 2) NOT NULL
+);
+
+-- written by a background thread in the @h2 AsyncDbVerifier scenarios
+CREATE TABLE IF NOT EXISTS verify_events (
+	id INT PRIMARY KEY,
+	status VARCHAR(20) NOT NULL
+);